@@ -0,0 +1,17 @@
+package moe.haiiro.cakecommands;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+
+public class MinecraftBootstrap {
+    private static boolean initialized = false;
+
+    public static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+        initialized = true;
+    }
+}
@@ -0,0 +1,58 @@
+package moe.haiiro.cakecommands.teams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invite creation followed by the lookups acceptInvite and declineInvite do, with one pending invite per team.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InviteBenchmark {
+    private int cursor = 0;
+
+    // Removed invites stay in the expiry queue until a sweep gets past them, which the pending ones block,
+    // so start every iteration from a fresh store instead of letting the queue grow across the whole run
+    @Setup(Level.Iteration)
+    public void setup(SyntheticScoreboard board) {
+        InviteStore.clear();
+        for (int i = 0; i < board.teamCount; i++) {
+            InviteStore.create(board.teams[i], "invitee" + i);
+        }
+    }
+
+    @Benchmark
+    public TeamInvite inviteAndAccept(SyntheticScoreboard board) {
+        cursor = (cursor + 7919) % board.teamCount;
+        var invite = InviteStore.create(board.teams[cursor], "player" + cursor);
+        var found = InviteStore.get(invite.getInviteId());
+        return InviteStore.remove(found.getInviteId());
+    }
+
+    @Benchmark
+    public TeamInvite inviteAndDecline(SyntheticScoreboard board) {
+        cursor = (cursor + 7919) % board.teamCount;
+        var invite = InviteStore.create(board.teams[cursor], "player" + cursor);
+        for (TeamInvite pending : InviteStore.getForPlayer(invite.playerName())) {
+            if (pending.getInviteId() == invite.getInviteId()) {
+                return InviteStore.remove(pending.getInviteId());
+            }
+        }
+        return null;
+    }
+}
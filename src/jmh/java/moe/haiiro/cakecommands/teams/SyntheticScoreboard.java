@@ -0,0 +1,74 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.MinecraftBootstrap;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.UUID;
+
+/**
+ * A scoreboard filled with custom teams the way TeamManager creates them: one owner and two members per team.
+ */
+@State(Scope.Benchmark)
+public class SyntheticScoreboard {
+    @Param({"100", "10000", "100000"})
+    public int teamCount;
+
+    public Scoreboard scoreboard;
+    public Team[] teams;
+    public String[] owners;
+    public UUID[] ownerIds;
+    public String[] members;
+    public String[] names;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MinecraftBootstrap.init();
+        scoreboard = new Scoreboard();
+        teams = new Team[teamCount];
+        owners = new String[teamCount];
+        ownerIds = new UUID[teamCount];
+        members = new String[teamCount];
+        names = new String[teamCount];
+
+        var colors = Formatting.values();
+        for (int i = 0; i < teamCount; i++) {
+            var name = Integer.toString(i, 36);
+            var owner = "owner" + i;
+            var team = scoreboard.addTeam(TeamRegistry.TEAM_PREFIX + name + "_" + owner);
+            var style = Style.EMPTY.withColor(colors[i % 16]);
+            team.setPrefix(Text.literal(name + " ").setStyle(style));
+            team.setDisplayName(Text.literal(name).setStyle(style));
+
+            scoreboard.addScoreHolderToTeam(owner, team);
+            scoreboard.addScoreHolderToTeam("member" + i + "a", team);
+            scoreboard.addScoreHolderToTeam("member" + i + "b", team);
+
+            teams[i] = team;
+            owners[i] = owner;
+            ownerIds[i] = new UUID(0, i);
+            members[i] = "member" + i + "b";
+            names[i] = name;
+        }
+
+        TeamRegistry.clear();
+        for (int i = 0; i < teamCount; i++) {
+            TeamRegistry.registerTeam(teams[i], new TeamMeta(names[i], colors[i % 16].getName(), owners[i], ownerIds[i], 0));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TeamRegistry.clear();
+        InviteStore.clear();
+    }
+}
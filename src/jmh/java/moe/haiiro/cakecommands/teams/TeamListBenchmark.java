@@ -0,0 +1,39 @@
+package moe.haiiro.cakecommands.teams;
+
+import net.minecraft.text.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of /cteam list pages, with one team invalidated before every render like a busy server would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TeamListBenchmark {
+    private int cursor = 0;
+
+    @Benchmark
+    public Text firstPage(SyntheticScoreboard board) {
+        TeamRegistry.touch(board.teams[cursor++ % TeamListRenderer.PAGE_SIZE % board.teamCount]);
+        return TeamListRenderer.renderPage(1);
+    }
+
+    @Benchmark
+    public Text lastPage(SyntheticScoreboard board) {
+        TeamRegistry.touch(board.teams[board.teamCount - 1]);
+        return TeamListRenderer.renderPage(TeamListRenderer.getPageCount());
+    }
+}
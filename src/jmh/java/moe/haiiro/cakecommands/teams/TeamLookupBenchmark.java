@@ -0,0 +1,69 @@
+package moe.haiiro.cakecommands.teams;
+
+import net.minecraft.scoreboard.Team;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owner and member lookups, both through the {@link TeamRegistry} and by scanning the scoreboard the way
+ * TeamManager used to, so the two can be compared.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TeamLookupBenchmark {
+    private int cursor = 0;
+
+    private int next(SyntheticScoreboard board) {
+        cursor = (cursor + 7919) % board.teamCount;
+        return cursor;
+    }
+
+    @Benchmark
+    public Team ownerLookup(SyntheticScoreboard board) {
+        return TeamRegistry.getByOwner(board.ownerIds[next(board)]);
+    }
+
+    @Benchmark
+    public Team memberLookup(SyntheticScoreboard board) {
+        return TeamRegistry.getByMember(board.members[next(board)]);
+    }
+
+    @Benchmark
+    public Team nameLookup(SyntheticScoreboard board) {
+        return TeamRegistry.getByName(board.names[next(board)]);
+    }
+
+    @Benchmark
+    public Team ownerScan(SyntheticScoreboard board) {
+        var owner = board.owners[next(board)];
+        return board.scoreboard.getTeams()
+                .stream()
+                .filter(t -> t.getName().startsWith("cteam") && t.getName().endsWith(owner))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Benchmark
+    public Team memberScan(SyntheticScoreboard board) {
+        var member = board.members[next(board)];
+        for (Team t : board.scoreboard.getTeams()) {
+            if (t.getName().startsWith("cteam") && t.getPlayerList().contains(member)) {
+                return t;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,52 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.MinecraftBootstrap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction and validation of {@link TeamState}. Doesn't depend on the scoreboard, so it has no size parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TeamStateBenchmark {
+    @Setup(Level.Trial)
+    public void setup() {
+        MinecraftBootstrap.init();
+    }
+
+    @Benchmark
+    public TeamState namedColor() {
+        return new TeamState("abcd", "dark_purple", "owner");
+    }
+
+    @Benchmark
+    public TeamState hexColor() {
+        return new TeamState("abcd", "#a3f767", "owner");
+    }
+
+    @Benchmark
+    public void invalidColor(Blackhole blackhole) {
+        try {
+            blackhole.consume(new TeamState("abcd", "not_a_color", "owner"));
+        } catch (IllegalArgumentException e) {
+            blackhole.consume(e);
+        }
+    }
+}
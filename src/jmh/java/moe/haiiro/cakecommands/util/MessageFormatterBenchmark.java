@@ -0,0 +1,48 @@
+package moe.haiiro.cakecommands.util;
+
+import moe.haiiro.cakecommands.MinecraftBootstrap;
+import net.minecraft.text.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message formatting. Doesn't depend on the scoreboard, so it has no size parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageFormatterBenchmark {
+    @Setup(Level.Trial)
+    public void setup() {
+        MinecraftBootstrap.init();
+    }
+
+    @Benchmark
+    public Text formatMessage() {
+        return MessageFormatter.formatMessage("Team created successfully!", MessageFormatter.SUCCESS_COLOR);
+    }
+
+    @Benchmark
+    public Text constantMessage() {
+        return MessageFormatter.constantMessage("Team created successfully!", MessageFormatter.SUCCESS_COLOR);
+    }
+
+    @Benchmark
+    public Text formatTemplate() {
+        return MessageFormatter.formatTemplate("{} has created a new team!", MessageFormatter.INFO_COLOR, "cakes");
+    }
+}
@@ -0,0 +1,236 @@
+package moe.haiiro.cakecommands.loadtest;
+
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.metrics.CommandMetrics;
+import moe.haiiro.cakecommands.metrics.LatencyHistogram;
+import moe.haiiro.cakecommands.teams.InviteStore;
+import moe.haiiro.cakecommands.teams.TeamChat;
+import moe.haiiro.cakecommands.teams.TeamListRenderer;
+import moe.haiiro.cakecommands.teams.TeamRegistry;
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Simulates players creating teams, inviting, accepting, chatting with /ctm and listing teams on a dedicated server,
+ * then writes a report with the tick time distribution and per-command latency to {@code reports/} in the run
+ * directory and stops the server.
+ * <p>
+ * Run it with {@code ./gradlew runLoadTest}, options are passed as project properties:
+ * {@code -PloadTest.players=3000}, {@code -PloadTest.warmup=600} and {@code -PloadTest.ticks=2400} (in ticks),
+ * {@code -PloadTest.interval=40} (ticks between two actions of the same player), {@code -PloadTest.seed=1} and
+ * {@code -PloadTest.baseline=reports/<earlier report>.json} to log the difference to an earlier run.
+ * Players are grouped into full teams, the first player of every group owns the team and invites the others.
+ */
+public class LoadTest implements ModInitializer {
+    private static final int PLAYERS = Integer.getInteger("cakecommands.loadTest.players", 3000);
+    private static final int WARMUP_TICKS = Integer.getInteger("cakecommands.loadTest.warmup", 20 * 30);
+    private static final int MEASURED_TICKS = Integer.getInteger("cakecommands.loadTest.ticks", 20 * 120);
+    private static final int ACTION_INTERVAL = Math.max(1, Integer.getInteger("cakecommands.loadTest.interval", 40));
+    private static final long SEED = Long.getLong("cakecommands.loadTest.seed", 1);
+    private static final String BASELINE = System.getProperty("cakecommands.loadTest.baseline");
+    // Joining everyone in the same tick would make it an outlier that never happens on a real server
+    private static final int JOINS_PER_TICK = 100;
+    private static final String[] COLORS = {"red", "gold", "yellow", "green", "aqua", "blue", "light_purple", "white"};
+
+    private static final List<SimulatedPlayer> players = new ArrayList<>();
+    private static final Map<String, LatencyHistogram> commandLatency = new TreeMap<>();
+    private static final LatencyHistogram tickTime = new LatencyHistogram();
+    private static SplittableRandom random;
+    private static String startedAt;
+    private static int groupSize;
+    private static int groups;
+    private static int measureStart;
+    private static int tick = 0;
+    private static long tickStart;
+    private static long packetsSent = 0;
+    private static TeamChat.Stats chatAtStart;
+    private static boolean running = false;
+
+    @Override
+    public void onInitialize() {
+        if (!Boolean.getBoolean("cakecommands.loadTest")) {
+            return;
+        }
+
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> start());
+        ServerTickEvents.START_SERVER_TICK.register(LoadTest::tickStarted);
+        ServerTickEvents.END_SERVER_TICK.register(LoadTest::tickEnded);
+    }
+
+    private static void start() {
+        random = new SplittableRandom(SEED);
+        startedAt = Instant.now().toString();
+        groupSize = ConfigManager.get().maxMembers();
+        groups = (PLAYERS + groupSize - 1) / groupSize;
+        measureStart = (PLAYERS + JOINS_PER_TICK - 1) / JOINS_PER_TICK + WARMUP_TICKS;
+        running = true;
+        CakeCommands.LOGGER.info("Load test: {} players in {} teams, measuring {} ticks after {} ticks of warmup",
+                PLAYERS, groups, MEASURED_TICKS, measureStart);
+    }
+
+    private static boolean isMeasuring() {
+        return tick >= measureStart;
+    }
+
+    private static void tickStarted(MinecraftServer server) {
+        if (!running) {
+            return;
+        }
+        tickStart = System.nanoTime();
+        if (tick == measureStart) {
+            chatAtStart = TeamChat.getStats();
+        }
+
+        for (int i = 0; i < JOINS_PER_TICK && players.size() < PLAYERS; i++) {
+            int index = players.size();
+            players.add(SimulatedPlayer.connect(server, playerName(index), index / groupSize, index % groupSize == 0));
+        }
+
+        // Every player acts once per interval, spread evenly over its ticks
+        for (int i = tick % ACTION_INTERVAL; i < players.size(); i += ACTION_INTERVAL) {
+            act(server, players.get(i));
+        }
+    }
+
+    private static void tickEnded(MinecraftServer server) {
+        if (!running) {
+            return;
+        }
+        long elapsed = System.nanoTime() - tickStart;
+
+        long packets = 0;
+        for (SimulatedPlayer player : players) {
+            packets += player.drainPackets();
+        }
+        if (isMeasuring()) {
+            tickTime.record(elapsed);
+            packetsSent += packets;
+        }
+
+        if (++tick == measureStart + MEASURED_TICKS) {
+            finish(server);
+        }
+    }
+
+    private static void act(MinecraftServer server, SimulatedPlayer player) {
+        var team = TeamRegistry.getByMember(player.name);
+        if (player.owner) {
+            if (team == null) {
+                run(server, player, "cteam create " + teamName(player.group) + " " + COLORS[player.group % COLORS.length]);
+                return;
+            }
+
+            int first = player.group * groupSize;
+            for (int i = first + 1; i < Math.min(first + groupSize, PLAYERS); i++) {
+                var member = playerName(i);
+                if (!team.getPlayerList().contains(member) && InviteStore.getForPlayer(member).isEmpty()) {
+                    run(server, player, "cteam invite " + member);
+                    return;
+                }
+            }
+        } else if (team == null) {
+            var invites = InviteStore.getForPlayer(player.name);
+            if (!invites.isEmpty()) {
+                run(server, player, "cteam accept " + invites.iterator().next().id());
+            }
+            return;
+        }
+
+        double roll = random.nextDouble();
+        if (roll < 0.6) {
+            run(server, player, "ctm Hello from " + player.name + "!");
+        } else if (roll < 0.8) {
+            run(server, player, "cteam list " + (1 + random.nextInt(TeamListRenderer.getPageCount())));
+        } else if (roll < 0.95) {
+            run(server, player, "cteam info " + teamName(random.nextInt(groups)));
+        } else if (!player.owner) {
+            run(server, player, "cteam leave");
+        } else if (roll < 0.96) {
+            run(server, player, "cteam delete");
+        }
+    }
+
+    private static void run(MinecraftServer server, SimulatedPlayer player, String command) {
+        long start = System.nanoTime();
+        player.run(server, command);
+        long elapsed = System.nanoTime() - start;
+
+        if (isMeasuring()) {
+            var words = command.split(" ", 3);
+            var label = words[0].equals("cteam") ? words[0] + " " + words[1] : words[0];
+            commandLatency.computeIfAbsent(label, l -> new LatencyHistogram()).record(elapsed);
+        }
+    }
+
+    private static String playerName(int index) {
+        return "load" + index;
+    }
+
+    private static String teamName(int group) {
+        return Integer.toString(group, 36);
+    }
+
+    private static void finish(MinecraftServer server) {
+        running = false;
+
+        var commands = new LinkedHashMap<String, LoadTestReport.Latency>();
+        commandLatency.forEach((name, histogram) -> commands.put(name, LoadTestReport.Latency.of(histogram)));
+        var handlers = new LinkedHashMap<String, LoadTestReport.Latency>();
+        CommandMetrics.getCommands().forEach((name, stats) -> {
+            if (stats.invocations() > 0) {
+                handlers.put(name, LoadTestReport.Latency.of(stats.latency()));
+            }
+        });
+        var chat = TeamChat.getStats();
+        var version = FabricLoader.getInstance().getModContainer(CakeCommands.MODID)
+                .map(mod -> mod.getMetadata().getVersion().getFriendlyString())
+                .orElse("unknown");
+
+        var report = new LoadTestReport(version, startedAt, players.size(), TeamRegistry.size(), ACTION_INTERVAL, SEED,
+                WARMUP_TICKS, MEASURED_TICKS, LoadTestReport.Latency.of(tickTime), commands, handlers, packetsSent,
+                chat.messagesSent() - chatAtStart.messagesSent(), chat.messagesDelivered() - chatAtStart.messagesDelivered());
+
+        var path = FabricLoader.getInstance().getGameDir().resolve("reports")
+                .resolve("loadtest-" + version + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        try {
+            report.write(path);
+        } catch (IOException e) {
+            CakeCommands.LOGGER.error("Failed to write the load test report to {}", path, e);
+        }
+
+        var ticks = report.tickTime();
+        CakeCommands.LOGGER.info("Load test done: {} players, {} teams, tick p50 {}ms, p99 {}ms, max {}ms, report written to {}",
+                report.players(), report.teams(),
+                String.format("%.2f", ticks.p50Millis()), String.format("%.2f", ticks.p99Millis()), String.format("%.2f", ticks.maxMillis()),
+                path);
+        if (BASELINE != null) {
+            var baseline = LoadTestReport.read(Path.of(BASELINE));
+            if (baseline != null) {
+                report.logComparison(baseline);
+            }
+        }
+
+        // Take the simulated players out before the server saves and kicks everyone
+        for (SimulatedPlayer player : players) {
+            player.disconnect(server);
+        }
+        players.clear();
+        server.stop(false);
+    }
+}
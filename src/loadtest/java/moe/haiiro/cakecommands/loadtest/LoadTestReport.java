@@ -0,0 +1,86 @@
+package moe.haiiro.cakecommands.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * The result of a load test run, written as JSON so runs of different releases can be compared.
+ * Handler latencies come from the mod's own command metrics and cover the whole run, warmup included.
+ */
+record LoadTestReport(String version,
+                      String startedAt,
+                      int players,
+                      int teams,
+                      int actionInterval,
+                      long seed,
+                      int warmupTicks,
+                      int measuredTicks,
+                      Latency tickTime,
+                      Map<String, Latency> commands,
+                      Map<String, Latency> handlers,
+                      long packetsSent,
+                      long teamMessagesSent,
+                      long teamMessagesDelivered) {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    record Latency(long count, double meanMillis, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+        static Latency of(LatencyHistogram histogram) {
+            long count = histogram.count();
+            return new Latency(count,
+                    count == 0 ? 0 : histogram.sumNanos() / 1e6 / count,
+                    histogram.valueAt(0.5) / 1e6,
+                    histogram.valueAt(0.9) / 1e6,
+                    histogram.valueAt(0.99) / 1e6,
+                    histogram.maxNanos() / 1e6);
+        }
+    }
+
+    void write(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, GSON.toJson(this));
+    }
+
+    static LoadTestReport read(Path path) {
+        try {
+            return GSON.fromJson(Files.readString(path), LoadTestReport.class);
+        } catch (IOException | JsonParseException e) {
+            CakeCommands.LOGGER.warn("Failed to read the baseline report {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Logs how this run compares to an earlier one.
+     */
+    void logComparison(LoadTestReport baseline) {
+        CakeCommands.LOGGER.info("Compared to {} ({} players):", baseline.version(), baseline.players());
+        logChange("tick", baseline.tickTime(), tickTime);
+        commands.forEach((name, latency) -> {
+            var before = baseline.commands() != null ? baseline.commands().get(name) : null;
+            if (before != null) {
+                logChange(name, before, latency);
+            }
+        });
+    }
+
+    private static void logChange(String name, Latency before, Latency after) {
+        CakeCommands.LOGGER.info("  {}: p50 {} -> {}, p99 {} -> {}", name,
+                String.format("%.3fms", before.p50Millis()), formatChange(before.p50Millis(), after.p50Millis()),
+                String.format("%.3fms", before.p99Millis()), formatChange(before.p99Millis(), after.p99Millis()));
+    }
+
+    private static String formatChange(double before, double after) {
+        if (before == 0) {
+            return String.format("%.3fms", after);
+        }
+        return String.format("%.3fms (%+.0f%%)", after, (after - before) / before * 100);
+    }
+}
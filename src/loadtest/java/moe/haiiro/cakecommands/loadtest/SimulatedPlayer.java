@@ -0,0 +1,80 @@
+package moe.haiiro.cakecommands.loadtest;
+
+import com.mojang.authlib.GameProfile;
+import io.netty.channel.embedded.EmbeddedChannel;
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.loadtest.mixin.ClientConnectionAccessor;
+import moe.haiiro.cakecommands.loadtest.mixin.PlayerManagerAccessor;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.NetworkSide;
+import net.minecraft.network.packet.c2s.common.SyncedClientOptions;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ConnectedClientData;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Uuids;
+
+/**
+ * A player that only exists in the player list. It has a real network handler, but its connection is an embedded
+ * channel nobody reads from, so everything the server sends it is counted and dropped.
+ * <p>
+ * The player is never added to a world and its connection is never ticked, so it can't time out and costs nothing
+ * beyond what the commands it runs cost.
+ */
+class SimulatedPlayer {
+    final String name;
+    final ServerPlayerEntity player;
+    // Index of the group this player belongs to, the first player of every group owns its team
+    final int group;
+    final boolean owner;
+
+    private final ServerPlayNetworkHandler handler;
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    private SimulatedPlayer(String name, ServerPlayerEntity player, ServerPlayNetworkHandler handler, int group, boolean owner) {
+        this.name = name;
+        this.player = player;
+        this.handler = handler;
+        this.group = group;
+        this.owner = owner;
+    }
+
+    static SimulatedPlayer connect(MinecraftServer server, String name, int group, boolean owner) {
+        var profile = new GameProfile(Uuids.getOfflinePlayerUuid(name), name);
+        var player = new ServerPlayerEntity(server, server.getOverworld(), profile, SyncedClientOptions.createDefault());
+        var connection = new ClientConnection(NetworkSide.SERVERBOUND);
+        var simulated = new SimulatedPlayer(name, player,
+                new ServerPlayNetworkHandler(server, connection, player, ConnectedClientData.createDefault(profile, false)),
+                group, owner);
+        ((ClientConnectionAccessor) connection).setChannel(simulated.channel);
+
+        server.getPlayerManager().getPlayerList().add(player);
+        ((PlayerManagerAccessor) server.getPlayerManager()).getPlayerMap().put(player.getUuid(), player);
+        CakeCommands.playerJoined(simulated.handler, server);
+        return simulated;
+    }
+
+    void run(MinecraftServer server, String command) {
+        server.getCommandManager().executeWithPrefix(player.getCommandSource(), command);
+    }
+
+    /**
+     * Drops everything sent to the player since the last call.
+     *
+     * @return the number of packets dropped
+     */
+    int drainPackets() {
+        int packets = channel.outboundMessages().size();
+        if (packets > 0) {
+            channel.releaseOutbound();
+        }
+        return packets;
+    }
+
+    void disconnect(MinecraftServer server) {
+        CakeCommands.playerLeft(handler, server);
+        server.getPlayerManager().getPlayerList().remove(player);
+        ((PlayerManagerAccessor) server.getPlayerManager()).getPlayerMap().remove(player.getUuid(), player);
+        channel.close();
+    }
+}
@@ -0,0 +1,15 @@
+package moe.haiiro.cakecommands.loadtest.mixin;
+
+import net.minecraft.server.PlayerManager;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Mixin(PlayerManager.class)
+public interface PlayerManagerAccessor {
+    @Accessor("playerMap")
+    Map<UUID, ServerPlayerEntity> getPlayerMap();
+}
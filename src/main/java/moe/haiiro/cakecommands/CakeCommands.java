@@ -1,11 +1,38 @@
 package moe.haiiro.cakecommands;
 
+import moe.haiiro.cakecommands.audit.AuditLog;
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.events.TeamEventBus;
+import moe.haiiro.cakecommands.metrics.CommandMetrics;
+import moe.haiiro.cakecommands.metrics.PrometheusExporter;
+import moe.haiiro.cakecommands.teams.DeferredCommands;
+import moe.haiiro.cakecommands.teams.HelpRenderer;
+import moe.haiiro.cakecommands.teams.InviteStore;
+import moe.haiiro.cakecommands.teams.Mailbox;
 import moe.haiiro.cakecommands.teams.PlayerSuggestionProvider;
+import moe.haiiro.cakecommands.teams.ScoreboardSync;
+import moe.haiiro.cakecommands.teams.SuggestionSnapshots;
+import moe.haiiro.cakecommands.teams.TeamChat;
+import moe.haiiro.cakecommands.teams.TeamInfoRenderer;
+import moe.haiiro.cakecommands.teams.TeamListRenderer;
 import moe.haiiro.cakecommands.teams.TeamManager;
+import moe.haiiro.cakecommands.teams.TeamNotifications;
+import moe.haiiro.cakecommands.teams.TeamPersistence;
+import moe.haiiro.cakecommands.teams.TeamRegistry;
 import moe.haiiro.cakecommands.teams.TeamSuggestionProvider;
+import moe.haiiro.cakecommands.teams.TeamSweeper;
+import moe.haiiro.cakecommands.teams.TeamTransfer;
+import moe.haiiro.cakecommands.teams.TeamUpdates;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import moe.haiiro.cakecommands.util.RateLimiter;
 import net.fabricmc.api.ModInitializer;
 
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,6 +41,8 @@ import static com.mojang.brigadier.arguments.LongArgumentType.longArg;
 import static com.mojang.brigadier.arguments.StringArgumentType.string;
 import static com.mojang.brigadier.arguments.StringArgumentType.word;
 import static com.mojang.brigadier.arguments.StringArgumentType.greedyString;
+import static moe.haiiro.cakecommands.metrics.CommandMetrics.timed;
+import static moe.haiiro.cakecommands.util.RateLimiter.limited;
 import static net.minecraft.server.command.CommandManager.argument;
 import static net.minecraft.server.command.CommandManager.literal;
 
@@ -24,52 +53,130 @@ public class CakeCommands implements ModInitializer {
     @Override
     public void onInitialize() {
         LOGGER.info("Initializing CakeCommands");
+        ConfigManager.load();
+        loadEvents();
         loadCommands();
     }
 
+    private void loadEvents() {
+        TeamRegistry.addListener(TeamChat.LISTENER);
+        TeamRegistry.addListener(SuggestionSnapshots.LISTENER);
+        TeamRegistry.addListener(TeamListRenderer.LISTENER);
+        TeamRegistry.addListener(TeamInfoRenderer.LISTENER);
+        TeamRegistry.addListener(DeferredCommands.LISTENER);
+        TeamNotifications.register();
+        AuditLog.register();
+        ConfigManager.addListener(MessageFormatter.CONFIG_LISTENER);
+        ConfigManager.addListener(RateLimiter.CONFIG_LISTENER);
+        ConfigManager.addListener(TeamListRenderer.CONFIG_LISTENER);
+        ConfigManager.addListener(TeamInfoRenderer.CONFIG_LISTENER);
+
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            TeamPersistence.load(server);
+            TeamEventBus.start(server);
+            AuditLog.start(server);
+            ConfigManager.start(server);
+        });
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            // Send the last team changes so the scoreboard is saved with them
+            TeamUpdates.flush(server);
+            TeamPersistence.save();
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            ConfigManager.stop();
+            TeamEventBus.stop();
+            AuditLog.stop();
+            ScoreboardSync.stop();
+            TeamRegistry.clear();
+            InviteStore.clear();
+            TeamChat.clear();
+            Mailbox.clear();
+            SuggestionSnapshots.clear();
+            DeferredCommands.clear();
+            TeamTransfer.clear();
+            TeamSweeper.clear();
+            RateLimiter.clear();
+            TeamUpdates.clear();
+            PrometheusExporter.stop();
+        });
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> playerJoined(handler, server));
+        ServerPlayConnectionEvents.DISCONNECT.register(CakeCommands::playerLeft);
+        ServerTickEvents.START_SERVER_TICK.register(DeferredCommands::commit);
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            InviteStore.tick();
+            Mailbox.tick();
+            RateLimiter.tick();
+            SuggestionSnapshots.tick(server);
+            TeamTransfer.tick(server);
+            TeamSweeper.tick(server);
+            TeamUpdates.flush(server);
+            PrometheusExporter.tick();
+        });
+    }
+
+    public static void playerJoined(ServerPlayNetworkHandler handler, MinecraftServer server) {
+        TeamPersistence.playerJoined(handler.getPlayer());
+        TeamChat.playerJoined(handler);
+        Mailbox.playerJoined(server, handler.getPlayer());
+        SuggestionSnapshots.markPlayersDirty();
+    }
+
+    public static void playerLeft(ServerPlayNetworkHandler handler, MinecraftServer server) {
+        TeamChat.playerLeft(handler);
+        SuggestionSnapshots.markPlayersDirty();
+    }
+
     private void loadCommands() {
         CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
             dispatcher.register(
                     literal("cteam")
                             .then(literal("help")
-                                    .executes(TeamManager::help)
+                                    .executes(timed("help", TeamManager::help))
+                                    .then(argument("subcommand", word())
+                                            .suggests(HelpRenderer.SUBCOMMANDS)
+                                            .executes(timed("help", TeamManager::helpPage))
+                                    )
                             )
                             .then(literal("create")
                                     .then(argument("name", word())
                                             .then(argument("color", string())
-                                                    .executes(TeamManager::createTeam)
+                                                    .executes(timed("create", TeamManager::createTeam))
                                             )
                                     )
                             )
                             .then(literal("delete")
-                                    .executes(TeamManager::deleteTeam)
+                                    .executes(timed("delete", TeamManager::deleteTeam))
                             )
                             .then(literal("edit")
                                     .then(literal("color")
                                             .then(argument("color", string())
-                                                    .executes(TeamManager::editTeamColor)
+                                                    .executes(timed("edit color", TeamManager::editTeamColor))
                                             )
                                     )
                                     .then(literal("name")
                                             .then(argument("name", word())
-                                                    .executes(TeamManager::editTeamName)
+                                                    .executes(timed("edit name", TeamManager::editTeamName))
                                             )
                                     )
                             )
                             .then(literal("invite")
                                     .then(argument("player", word())
                                             .suggests(new PlayerSuggestionProvider())
-                                            .executes(TeamManager::inviteToTeam)
+                                            .executes(timed("invite", limited("invite", TeamManager::inviteToTeam)))
                                     )
                             )
                             .then(literal("kick")
                                     .then(argument("player", word())
                                             .suggests(new PlayerSuggestionProvider())
+                                            // Timed by DeferredCommands like accept and leave, they may only finish on the next tick
                                             .executes(TeamManager::kickFromTeam)
                                     )
                             )
                             .then(literal("list")
-                                    .executes(TeamManager::listTeams)
+                                    .executes(timed("list", limited("list", TeamManager::listTeams)))
+                                    .then(argument("page", integer(1))
+                                            .executes(timed("list", limited("list", TeamManager::listTeams)))
+                                    )
                             )
                             .then(literal("accept")
                                     .then(argument("invite_id", longArg())
@@ -78,7 +185,7 @@ public class CakeCommands implements ModInitializer {
                             )
                             .then(literal("decline")
                                     .then(argument("invite_id", longArg())
-                                            .executes(TeamManager::declineInvite)
+                                            .executes(timed("decline", TeamManager::declineInvite))
                                     )
                             )
                             .then(literal("leave")
@@ -87,28 +194,68 @@ public class CakeCommands implements ModInitializer {
                             .then(literal("info")
                                     .then(argument("team", word())
                                             .suggests(new TeamSuggestionProvider())
-                                            .executes(TeamManager::teamInfo)
+                                            .executes(timed("info", TeamManager::teamInfo))
                                     )
                             )
                             .then(literal("forcedelete")
                                     .requires(source -> source.hasPermissionLevel(4))
                                     .then(argument("team", word())
                                             .suggests(new TeamSuggestionProvider())
-                                            .executes(TeamManager::forceDeleteTeam)
+                                            .executes(timed("forcedelete", TeamManager::forceDeleteTeam))
+                                    )
+                            )
+                            .then(literal("admin")
+                                    .requires(source -> source.hasPermissionLevel(4))
+                                    .then(literal("import")
+                                            .then(argument("file", string())
+                                                    .executes(timed("admin import", TeamTransfer::importTeams))
+                                            )
+                                    )
+                                    .then(literal("export")
+                                            .then(argument("file", string())
+                                                    .executes(timed("admin export", TeamTransfer::exportTeams))
+                                            )
+                                    )
+                                    .then(literal("sweep")
+                                            .executes(timed("admin sweep", TeamSweeper::dryRun))
+                                            .then(literal("run")
+                                                    .executes(timed("admin sweep", TeamSweeper::sweep))
+                                            )
+                                    )
+                                    .then(literal("audit")
+                                            .then(argument("team", word())
+                                                    .suggests(new TeamSuggestionProvider())
+                                                    .executes(timed("admin audit", AuditLog::query))
+                                                    .then(argument("count", integer(1, AuditLog.MAX_QUERY_RESULTS))
+                                                            .executes(timed("admin audit", AuditLog::query))
+                                                    )
+                                            )
+                                    )
+                            )
+                            .then(literal("stats")
+                                    .requires(source -> source.hasPermissionLevel(4))
+                                    .executes(CommandMetrics::showStats)
+                            )
+                            .then(literal("chat")
+                                    .then(literal("toggle")
+                                            .executes(timed("chat toggle", TeamManager::toggleTeamChat))
                                     )
                             )
                             .then(literal("msg")
                                     .then(argument("message", string())
-                                            .executes(TeamManager::privateMessageTeam)
+                                            .executes(timed("msg", limited("chat", TeamManager::privateMessageTeam)))
                                     ))
             );
 
             dispatcher.register(
                     literal("ctm")
                             .then(argument("message", greedyString())
-                                    .executes(TeamManager::privateMessageTeam)
+                                    .executes(timed("ctm", limited("chat", TeamManager::privateMessageTeam)))
                             )
             );
+
+            // Built after everything is registered, so the help matches the tree
+            HelpRenderer.build(dispatcher, "cteam", "ctm");
         });
     }
 }
\ No newline at end of file
@@ -0,0 +1,410 @@
+package moe.haiiro.cakecommands.audit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.mojang.brigadier.context.CommandContext;
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.events.TeamEvent;
+import moe.haiiro.cakecommands.events.TeamEventBus;
+import moe.haiiro.cakecommands.teams.TeamRegistry;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.util.WorldSavePath;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static moe.haiiro.cakecommands.util.CommandUtils.sendFeedback;
+
+/**
+ * Log of every change to a team, written as gzipped JSON Lines to {@code <world>/cakecommands/audit} off the server thread.
+ */
+public class AuditLog {
+    private static final int CAPACITY = 8192;
+    private static final int MASK = CAPACITY - 1;
+    private static final long FLUSH_INTERVAL_NANOS = 250_000_000;
+    private static final long MAX_SEGMENT_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_SEGMENTS = 32;
+    public static final int MAX_QUERY_RESULTS = 50;
+
+    private static final Gson GSON = new Gson();
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("^audit-(\\d+)\\.jsonl\\.gz$");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private static final AtomicReferenceArray<AuditRecord> slots = new AtomicReferenceArray<>(CAPACITY);
+    // Next sequence to claim, bumped by producers
+    private static final AtomicLong head = new AtomicLong();
+    // Next sequence to write, only advanced by the writer
+    private static final AtomicLong tail = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile Path directory = null;
+    private static volatile boolean running = false;
+    private static Thread writer = null;
+
+    public record Stats(long written, long dropped, long pending) {
+    }
+
+    public static void register() {
+        TeamEventBus.register(TeamEvent.TeamCreated.class, (server, event) -> {
+            var meta = TeamRegistry.getMeta(event.team());
+            record(server, event.owner(), "create", event.team(), null, meta != null ? meta.name() + " " + meta.color() : null);
+        });
+        TeamEventBus.register(TeamEvent.TeamDeleted.class, (server, event) ->
+                record(server, event.deletedBy(), "delete", event.team(), teamName(event.team()), null));
+        TeamEventBus.register(TeamEvent.TeamRenamed.class, (server, event) ->
+                record(server, event.renamedBy(), "rename", event.team(), event.oldName(), event.newName()));
+        TeamEventBus.register(TeamEvent.TeamRecolored.class, (server, event) ->
+                record(server, event.recoloredBy(), "recolor", event.team(), event.oldColor(), event.color()));
+        TeamEventBus.register(TeamEvent.MemberJoined.class, (server, event) ->
+                record(server, event.member(), "join", event.team(), null, event.member()));
+        TeamEventBus.register(TeamEvent.MemberLeft.class, (server, event) ->
+                record(server, event.member(), "leave", event.team(), event.member(), null));
+        TeamEventBus.register(TeamEvent.MemberKicked.class, (server, event) ->
+                record(server, event.kickedBy(), "kick", event.team(), event.member(), null));
+        TeamEventBus.register(TeamEvent.InviteSent.class, (server, event) ->
+                record(server, event.invitedBy(), "invite", event.team(), null, event.invite().playerName()));
+        TeamEventBus.register(TeamEvent.InviteDeclined.class, (server, event) ->
+                record(server, event.invite().playerName(), "decline", event.team(), event.invite().playerName(), null));
+    }
+
+    private static String teamName(Team team) {
+        var meta = TeamRegistry.getMeta(team);
+        return meta != null ? meta.name() : team.getDisplayName().getString();
+    }
+
+    /**
+     * Records a change made by the named player or the console. Must be called on the server thread.
+     */
+    public static void record(MinecraftServer server, String actor, String action, Team team, String before, String after) {
+        var player = server.getPlayerManager().getPlayer(actor);
+        record(new AuditRecord(System.currentTimeMillis(), player != null ? player.getUuid() : null, actor, action,
+                team.getName(), teamName(team), before, after));
+    }
+
+    /**
+     * Queues a record for the writer. Safe to call from any thread, never blocks.
+     *
+     * @return false if the buffer was full and the record got dropped
+     */
+    public static boolean record(AuditRecord record) {
+        while (true) {
+            long sequence = head.get();
+            if (sequence - tail.get() >= CAPACITY) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (head.compareAndSet(sequence, sequence + 1)) {
+                slots.set((int) (sequence & MASK), record);
+                return true;
+            }
+        }
+    }
+
+    public static void start(MinecraftServer server) {
+        directory = server.getSavePath(WorldSavePath.ROOT).resolve(CakeCommands.MODID).resolve("audit");
+        running = true;
+        writer = new Thread(AuditLog::run, "CakeCommands Audit Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer once everything recorded so far has been written.
+     */
+    public static void stop() {
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    public static Stats getStats() {
+        return new Stats(written.get(), dropped.get(), head.get() - tail.get());
+    }
+
+    private static void run() {
+        var dir = directory;
+        var batch = new ArrayList<AuditRecord>();
+        OutputStream out = null;
+        Path segment = null;
+        try {
+            Files.createDirectories(dir);
+            segment = openSegment(dir);
+            out = Files.newOutputStream(segment, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            pruneSegments(dir);
+
+            boolean stopping = false;
+            while (!stopping) {
+                stopping = !running;
+                if (!stopping) {
+                    LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+                }
+
+                drain(batch);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+
+                writeBatch(out, batch);
+                written.addAndGet(batch.size());
+                batch.clear();
+
+                if (Files.size(segment) >= MAX_SEGMENT_BYTES) {
+                    out.close();
+                    segment = dir.resolve(segmentName(segmentNumber(segment) + 1));
+                    out = Files.newOutputStream(segment, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    pruneSegments(dir);
+                }
+            }
+        } catch (IOException e) {
+            CakeCommands.LOGGER.error("Failed to write the audit log to {}, dropping {} records", segment, batch.size(), e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    CakeCommands.LOGGER.warn("Failed to close {}", segment, e);
+                }
+            }
+        }
+    }
+
+    private static void drain(List<AuditRecord> batch) {
+        long next = tail.get();
+        long end = head.get();
+        while (next < end) {
+            int slot = (int) (next & MASK);
+            var record = slots.get(slot);
+            // Claimed but not stored yet, picked up by the next drain
+            if (record == null) {
+                break;
+            }
+            slots.set(slot, null);
+            batch.add(record);
+            next++;
+        }
+        tail.set(next);
+    }
+
+    private static void writeBatch(OutputStream out, List<AuditRecord> batch) throws IOException {
+        var lines = new StringBuilder(batch.size() * 160);
+        for (AuditRecord record : batch) {
+            lines.append(GSON.toJson(record)).append('\n');
+        }
+
+        // Finishing the member without closing the segment, so the segment stays readable between batches
+        var gzip = new GZIPOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }, 64 * 1024);
+        gzip.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        gzip.close();
+    }
+
+    // Keeps writing to the newest segment while it has room, unless a crash cut off its last batch
+    private static Path openSegment(Path dir) throws IOException {
+        var segments = listSegments(dir);
+        if (segments.isEmpty()) {
+            return dir.resolve(segmentName(1));
+        }
+
+        var newest = segments.getFirst();
+        long size = Files.size(newest);
+        if (size == 0 || (size < MAX_SEGMENT_BYTES && isComplete(newest))) {
+            return newest;
+        }
+        return dir.resolve(segmentName(segmentNumber(newest) + 1));
+    }
+
+    private static boolean isComplete(Path segment) {
+        try (var in = new GZIPInputStream(Files.newInputStream(segment))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String segmentName(long number) {
+        return String.format("audit-%06d.jsonl.gz", number);
+    }
+
+    private static long segmentNumber(Path segment) {
+        var matcher = SEGMENT_PATTERN.matcher(segment.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    // Newest first
+    private static List<Path> listSegments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (var files = Files.list(dir)) {
+            return files.filter(f -> SEGMENT_PATTERN.matcher(f.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(AuditLog::segmentNumber).reversed())
+                    .toList();
+        }
+    }
+
+    private static void pruneSegments(Path dir) throws IOException {
+        var segments = listSegments(dir);
+        for (int i = MAX_SEGMENTS; i < segments.size(); i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * Finds the most recent records for a team, going through the segments from newest to oldest and stopping as soon
+     * as enough are found. Segments are streamed, only the matches are kept in memory.
+     *
+     * @param team the team's current or former name, or its scoreboard id
+     * @return newest first
+     */
+    public static List<AuditRecord> findRecent(String team, int limit) throws IOException {
+        var dir = directory;
+        var found = new ArrayList<AuditRecord>(limit);
+        if (dir == null) {
+            return found;
+        }
+
+        var needle = "\"" + team + "\"";
+        for (Path segment : listSegments(dir)) {
+            // The records of a segment are oldest first, keep the newest ones
+            var matches = new ArrayDeque<AuditRecord>(limit - found.size());
+            try (var reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(segment)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = readLine(reader)) != null) {
+                    if (!line.contains(needle)) {
+                        continue;
+                    }
+                    AuditRecord record;
+                    try {
+                        record = GSON.fromJson(line, AuditRecord.class);
+                    } catch (JsonParseException e) {
+                        continue;
+                    }
+                    if (record != null && matches(record, team)) {
+                        if (matches.size() == limit - found.size()) {
+                            matches.pollFirst();
+                        }
+                        matches.addLast(record);
+                    }
+                }
+            }
+
+            var newest = matches.descendingIterator();
+            while (newest.hasNext()) {
+                found.add(newest.next());
+            }
+            if (found.size() >= limit) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    private static boolean matches(AuditRecord record, String team) {
+        if (team.equals(record.teamName()) || team.equals(record.team())) {
+            return true;
+        }
+        // Renames are also found under the name the team had before
+        return "rename".equals(record.action()) && (team.equals(record.before()) || team.equals(record.after()));
+    }
+
+    // The newest member of the segment being written may still be incomplete, treat that as the end
+    private static String readLine(BufferedReader reader) throws IOException {
+        try {
+            return reader.readLine();
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    public static int query(CommandContext<ServerCommandSource> ctx) {
+        var team = ctx.getArgument("team", String.class);
+        int count;
+        try {
+            count = ctx.getArgument("count", Integer.class);
+        } catch (IllegalArgumentException e) {
+            count = 10;
+        }
+
+        var limit = Math.min(count, MAX_QUERY_RESULTS);
+        var server = ctx.getSource().getServer();
+        Thread.ofVirtual().name("CakeCommands Audit Query").start(() -> {
+            List<AuditRecord> records;
+            try {
+                records = findRecent(team, limit);
+            } catch (IOException e) {
+                CakeCommands.LOGGER.warn("Failed to read the audit log", e);
+                server.execute(() -> sendFeedback(ctx, "Failed to read the audit log!", MessageFormatter.ERROR_COLOR));
+                return;
+            }
+            server.execute(() -> sendFeedback(ctx, render(team, records)));
+        });
+        return 1;
+    }
+
+    private static Text render(String team, List<AuditRecord> records) {
+        if (records.isEmpty()) {
+            return Text.literal("No audit entries for " + team + "!")
+                    .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR));
+        }
+
+        var text = Text.literal("Audit log for " + team + " (newest first):")
+                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
+        for (AuditRecord record : records) {
+            var change = record.before() != null && record.after() != null ? record.before() + " -> " + record.after()
+                    : record.after() != null ? record.after()
+                    : record.before() != null ? record.before() : "";
+            text.append(Text.literal("\n" + TIME_FORMAT.format(Instant.ofEpochMilli(record.time())) + " ")
+                            .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR)))
+                    .append(Text.literal(record.actor() + " " + record.action() + " " + record.teamName() + (change.isEmpty() ? "" : ": " + change))
+                            .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR)));
+        }
+        return text;
+    }
+}
@@ -0,0 +1,16 @@
+package moe.haiiro.cakecommands.audit;
+
+import java.util.UUID;
+
+/**
+ * One change to a team, as written to the audit log.
+ *
+ * @param time    epoch milliseconds
+ * @param actorId null for the console and for players that weren't online
+ * @param team    the scoreboard team id, which stays the same when the team is renamed
+ * @param before  the value before the change, null if there was none
+ * @param after   the value after the change, null if there is none
+ */
+public record AuditRecord(long time, UUID actorId, String actor, String action, String team, String teamName,
+                          String before, String after) {
+}
@@ -0,0 +1,81 @@
+package moe.haiiro.cakecommands.config;
+
+import moe.haiiro.cakecommands.teams.TeamSweeper;
+import moe.haiiro.cakecommands.util.RateLimiter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of config/cakecommands.json.
+ * Missing or invalid values fall back to their defaults, so a partial file is fine.
+ */
+public record CakeConfig(String chatPrefix,
+                         int inviteExpiryMinutes,
+                         int maxNameLength,
+                         int maxMembers,
+                         int listPageSize,
+                         int mailExpiryDays,
+                         int maxMailboxes,
+                         int maxMailInvitesPerTeam,
+                         boolean deferredCommands,
+                         Map<String, RateLimiter.Limit> rateLimits,
+                         TeamSweeper.Policy sweeper) {
+    private static final Map<String, RateLimiter.Limit> DEFAULT_RATE_LIMITS = Map.of(
+            "chat", new RateLimiter.Limit(5, 1),
+            "invite", new RateLimiter.Limit(3, 0.2),
+            "list", new RateLimiter.Limit(5, 1));
+
+    public static final CakeConfig DEFAULT = new CakeConfig("GakkouCraft", 15, 4, 3, 10, 7, 65536, 10, false, DEFAULT_RATE_LIMITS, TeamSweeper.Policy.DEFAULT);
+
+    public CakeConfig {
+        if (chatPrefix == null || chatPrefix.isEmpty()) {
+            chatPrefix = "GakkouCraft";
+        }
+        if (inviteExpiryMinutes <= 0) {
+            inviteExpiryMinutes = 15;
+        }
+        // Longer names don't fit in the tab list prefix
+        if (maxNameLength <= 0 || maxNameLength > 16) {
+            maxNameLength = 4;
+        }
+        if (maxMembers <= 0) {
+            maxMembers = 3;
+        }
+        if (listPageSize <= 0) {
+            listPageSize = 10;
+        }
+        if (mailExpiryDays <= 0) {
+            mailExpiryDays = 7;
+        }
+        if (maxMailboxes <= 0) {
+            maxMailboxes = 65536;
+        }
+        if (maxMailInvitesPerTeam <= 0) {
+            maxMailInvitesPerTeam = 10;
+        }
+
+        var limits = new HashMap<>(DEFAULT_RATE_LIMITS);
+        if (rateLimits != null) {
+            rateLimits.forEach((name, limit) -> {
+                if (name != null && limit != null) {
+                    limits.put(name, limit);
+                }
+            });
+        }
+        rateLimits = Map.copyOf(limits);
+
+        if (sweeper == null) {
+            sweeper = TeamSweeper.Policy.DEFAULT;
+        }
+    }
+
+    public Duration inviteExpiry() {
+        return Duration.ofMinutes(inviteExpiryMinutes);
+    }
+
+    public Duration mailExpiry() {
+        return Duration.ofDays(mailExpiryDays);
+    }
+}
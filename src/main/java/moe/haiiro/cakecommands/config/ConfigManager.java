@@ -0,0 +1,152 @@
+package moe.haiiro.cakecommands.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import moe.haiiro.cakecommands.CakeCommands;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the current {@link CakeConfig} and swaps in a new one on the server thread whenever the file is edited.
+ */
+public class ConfigManager {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    // Editors tend to write a file in several steps, wait for them to finish before reading it
+    private static final long RELOAD_DELAY_MILLIS = 200;
+
+    private static volatile CakeConfig config = CakeConfig.DEFAULT;
+    private static final List<Listener> listeners = new ArrayList<>();
+    private static WatchService watchService = null;
+
+    /**
+     * Notified on the server thread after a reload changed the config.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void reloaded(CakeConfig previous, CakeConfig current);
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static CakeConfig get() {
+        return config;
+    }
+
+    private static Path getPath() {
+        return FabricLoader.getInstance().getConfigDir().resolve(CakeCommands.MODID + ".json");
+    }
+
+    /**
+     * Loads the config file, writing the defaults to it if it doesn't exist yet.
+     */
+    public static void load() {
+        var loaded = read(getPath());
+        if (loaded != null) {
+            apply(loaded);
+        }
+    }
+
+    // Returns null if the file can't be read, the current config stays in place then
+    private static CakeConfig read(Path path) {
+        if (!Files.exists(path)) {
+            try {
+                Files.createDirectories(path.getParent());
+                Files.writeString(path, GSON.toJson(CakeConfig.DEFAULT));
+            } catch (IOException e) {
+                CakeCommands.LOGGER.warn("Failed to write the default config to {}", path, e);
+            }
+            return CakeConfig.DEFAULT;
+        }
+
+        try (var reader = Files.newBufferedReader(path)) {
+            var loaded = GSON.fromJson(reader, CakeConfig.class);
+            return loaded != null ? loaded : CakeConfig.DEFAULT;
+        } catch (IOException | JsonParseException e) {
+            CakeCommands.LOGGER.warn("Failed to read the config from {}, keeping the current one", path, e);
+            return null;
+        }
+    }
+
+    private static boolean apply(CakeConfig next) {
+        var previous = config;
+        if (next.equals(previous)) {
+            return false;
+        }
+        config = next;
+        listeners.forEach(l -> l.reloaded(previous, next));
+        return true;
+    }
+
+    /**
+     * Starts watching the config file for changes.
+     */
+    public static void start(MinecraftServer server) {
+        var path = getPath();
+        WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            path.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            CakeCommands.LOGGER.warn("Failed to watch {}, config changes need a restart", path, e);
+            return;
+        }
+        watchService = service;
+
+        var thread = new Thread(() -> watch(server, service, path), "CakeCommands Config Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void watch(MinecraftServer server, WatchService watchService, Path path) {
+        try {
+            while (true) {
+                var key = watchService.take();
+                Thread.sleep(RELOAD_DELAY_MILLIS);
+                boolean changed = false;
+                for (var event : key.pollEvents()) {
+                    changed |= path.getFileName().equals(event.context());
+                }
+                key.reset();
+
+                if (changed) {
+                    var loaded = read(path);
+                    if (loaded != null) {
+                        server.execute(() -> {
+                            if (apply(loaded)) {
+                                CakeCommands.LOGGER.info("Reloaded config from {}", path);
+                            }
+                        });
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    public static void stop() {
+        if (watchService == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            CakeCommands.LOGGER.warn("Failed to stop watching the config", e);
+        }
+        watchService = null;
+    }
+}
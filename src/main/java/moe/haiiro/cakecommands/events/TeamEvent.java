@@ -0,0 +1,48 @@
+package moe.haiiro.cakecommands.events;
+
+import moe.haiiro.cakecommands.teams.TeamInvite;
+import net.minecraft.scoreboard.Team;
+
+/**
+ * Everything that can happen to a custom team. Posted through the {@link TeamEventBus}.
+ * <p>
+ * Events hold the live {@link Team}, which may only be touched on the server thread. Async handlers should stick
+ * to {@link #teamId()} and the other plain fields.
+ */
+public sealed interface TeamEvent {
+    Team team();
+
+    default String teamId() {
+        return team().getName();
+    }
+
+    record TeamCreated(Team team, String owner) implements TeamEvent {
+    }
+
+    record TeamDeleted(Team team, String deletedBy) implements TeamEvent {
+    }
+
+    record TeamRenamed(Team team, String oldName, String newName, String renamedBy) implements TeamEvent {
+    }
+
+    record TeamRecolored(Team team, String oldColor, String color, String recoloredBy) implements TeamEvent {
+    }
+
+    record MemberJoined(Team team, String member) implements TeamEvent {
+    }
+
+    record MemberLeft(Team team, String member, boolean owner) implements TeamEvent {
+    }
+
+    record MemberKicked(Team team, String member, String kickedBy) implements TeamEvent {
+    }
+
+    record InviteSent(Team team, TeamInvite invite, String invitedBy) implements TeamEvent {
+    }
+
+    record InviteDeclined(Team team, TeamInvite invite) implements TeamEvent {
+    }
+
+    record MessageSent(Team team, String sender, String message, int recipients) implements TeamEvent {
+    }
+}
@@ -0,0 +1,142 @@
+package moe.haiiro.cakecommands.events;
+
+import moe.haiiro.cakecommands.CakeCommands;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Typed dispatch of {@link TeamEvent}s, on the server thread or on a worker that drops events when it falls behind.
+ */
+public class TeamEventBus {
+    private static final int QUEUE_CAPACITY = 4096;
+
+    @FunctionalInterface
+    public interface Handler<E extends TeamEvent> {
+        void handle(MinecraftServer server, E event);
+    }
+
+    public record Stats(long posted, long queued, long dropped, long processed, int queueDepth, int maxQueueDepth) {
+    }
+
+    private record Task(Handler<TeamEvent> handler, TeamEvent event) {
+    }
+
+    private static final Map<Class<?>, List<Handler<TeamEvent>>> syncHandlers = new HashMap<>();
+    private static final Map<Class<?>, List<Handler<TeamEvent>>> asyncHandlers = new HashMap<>();
+    private static final BlockingQueue<Task> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private static final AtomicLong posted = new AtomicLong();
+    private static final AtomicLong queued = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong processed = new AtomicLong();
+    private static volatile int maxQueueDepth = 0;
+
+    private static MinecraftServer server = null;
+    private static Thread worker = null;
+
+    public static <E extends TeamEvent> void register(Class<E> type, Handler<? super E> handler) {
+        syncHandlers.computeIfAbsent(type, t -> new ArrayList<>()).add(cast(handler));
+    }
+
+    public static <E extends TeamEvent> void registerAsync(Class<E> type, Handler<? super E> handler) {
+        asyncHandlers.computeIfAbsent(type, t -> new ArrayList<>()).add(cast(handler));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Handler<TeamEvent> cast(Handler<?> handler) {
+        return (Handler<TeamEvent>) handler;
+    }
+
+    public static void start(MinecraftServer minecraftServer) {
+        server = minecraftServer;
+        worker = new Thread(TeamEventBus::run, "CakeCommands Team Events");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the worker once everything queued so far has been handled.
+     */
+    public static void stop() {
+        if (worker == null) {
+            return;
+        }
+
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+        server = null;
+    }
+
+    /**
+     * Must be called on the server thread.
+     */
+    public static void post(TeamEvent event) {
+        if (server == null) {
+            return;
+        }
+        posted.incrementAndGet();
+
+        var async = asyncHandlers.get(event.getClass());
+        if (async != null) {
+            for (Handler<TeamEvent> handler : async) {
+                if (queue.offer(new Task(handler, event))) {
+                    queued.incrementAndGet();
+                } else if (dropped.incrementAndGet() % 1000 == 1) {
+                    CakeCommands.LOGGER.warn("Team event queue is full, dropped {} events so far", dropped.get());
+                }
+            }
+            maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+        }
+
+        var sync = syncHandlers.get(event.getClass());
+        if (sync != null) {
+            for (Handler<TeamEvent> handler : sync) {
+                try {
+                    handler.handle(server, event);
+                } catch (RuntimeException e) {
+                    CakeCommands.LOGGER.error("Team event handler failed for {}", event, e);
+                }
+            }
+        }
+    }
+
+    public static Stats getStats() {
+        return new Stats(posted.get(), queued.get(), dropped.get(), processed.get(), queue.size(), maxQueueDepth);
+    }
+
+    private static void run() {
+        boolean running = true;
+        while (running || !queue.isEmpty()) {
+            Task task;
+            try {
+                task = running ? queue.take() : queue.poll();
+            } catch (InterruptedException e) {
+                running = false;
+                continue;
+            }
+            if (task == null) {
+                break;
+            }
+
+            try {
+                task.handler().handle(server, task.event());
+            } catch (RuntimeException e) {
+                CakeCommands.LOGGER.error("Async team event handler failed for {}", task.event(), e);
+            }
+            processed.incrementAndGet();
+        }
+    }
+}
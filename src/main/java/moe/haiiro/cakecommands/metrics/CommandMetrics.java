@@ -0,0 +1,201 @@
+package moe.haiiro.cakecommands.metrics;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import moe.haiiro.cakecommands.audit.AuditLog;
+import moe.haiiro.cakecommands.events.TeamEventBus;
+import moe.haiiro.cakecommands.teams.DeferredCommands;
+import moe.haiiro.cakecommands.teams.TeamChat;
+import moe.haiiro.cakecommands.teams.TeamUpdates;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import moe.haiiro.cakecommands.util.RateLimiter;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static moe.haiiro.cakecommands.util.CommandUtils.sendFeedback;
+
+/**
+ * Invocation counts, results and latencies of every command handler.
+ */
+public class CommandMetrics {
+    private static final Map<String, CommandStats> commands = new ConcurrentHashMap<>();
+
+    public static class CommandStats {
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder exceptions = new LongAdder();
+        private final Map<Integer, LongAdder> results = new ConcurrentHashMap<>();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private void record(int result, long nanos) {
+            invocations.increment();
+            results.computeIfAbsent(result, r -> new LongAdder()).increment();
+            latency.record(nanos);
+        }
+
+        private void recordException(long nanos) {
+            invocations.increment();
+            exceptions.increment();
+            latency.record(nanos);
+        }
+
+        public long invocations() {
+            return invocations.sum();
+        }
+
+        public long exceptions() {
+            return exceptions.sum();
+        }
+
+        public long successes() {
+            long successes = 0;
+            for (var entry : results.entrySet()) {
+                if (entry.getKey() > 0) {
+                    successes += entry.getValue().sum();
+                }
+            }
+            return successes;
+        }
+
+        public long failures() {
+            return invocations() - successes();
+        }
+
+        public Map<Integer, Long> results() {
+            var snapshot = new TreeMap<Integer, Long>();
+            results.forEach((result, count) -> snapshot.put(result, count.sum()));
+            return snapshot;
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Wraps a command handler so its invocations, return codes and latency are recorded under the given name.
+     */
+    public static Command<ServerCommandSource> timed(String name, Command<ServerCommandSource> command) {
+        var stats = getStats(name);
+        return ctx -> {
+            long start = System.nanoTime();
+            int result;
+            try {
+                result = command.run(ctx);
+            } catch (CommandSyntaxException | RuntimeException e) {
+                stats.recordException(System.nanoTime() - start);
+                throw e;
+            }
+            stats.record(result, System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    /**
+     * Records a command that finished outside of its handler, like the deferred ones.
+     */
+    public static void record(String name, int result, long nanos) {
+        getStats(name).record(result, nanos);
+    }
+
+    public static void recordException(String name, long nanos) {
+        getStats(name).recordException(nanos);
+    }
+
+    private static CommandStats getStats(String name) {
+        return commands.computeIfAbsent(name, n -> new CommandStats());
+    }
+
+    public static Map<String, CommandStats> getCommands() {
+        return Collections.unmodifiableMap(new TreeMap<>(commands));
+    }
+
+    public static int showStats(CommandContext<ServerCommandSource> ctx) {
+        var stats = Text.literal("Command stats:")
+                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
+
+        getCommands().forEach((name, command) -> {
+            if (command.invocations() == 0) {
+                return;
+            }
+
+            var latency = command.latency();
+            stats.append(Text.literal("\n" + name)
+                            .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR)))
+                    .append(Text.literal(String.format(": %d calls (%d ok, %d failed), p50 %s, p99 %s, max %s",
+                                    command.invocations(),
+                                    command.successes(),
+                                    command.failures(),
+                                    formatNanos(latency.valueAt(0.5)),
+                                    formatNanos(latency.valueAt(0.99)),
+                                    formatNanos(latency.maxNanos())))
+                            .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR)));
+        });
+
+        var chat = TeamChat.getStats();
+        stats.append(Text.literal(String.format("\nTeam chat: %d messages, %d deliveries, %.1fus average",
+                        chat.messagesSent(),
+                        chat.messagesDelivered(),
+                        chat.averageDeliveryMicros()))
+                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR)));
+
+        var events = TeamEventBus.getStats();
+        stats.append(Text.literal(String.format("\nTeam events: %d posted, %d handled, %d dropped, queue %d (max %d)",
+                        events.posted(),
+                        events.processed(),
+                        events.dropped(),
+                        events.queueDepth(),
+                        events.maxQueueDepth()))
+                .setStyle(Style.EMPTY.withColor(events.dropped() > 0 ? MessageFormatter.WARNING_COLOR : MessageFormatter.INFO_COLOR)));
+
+        var updates = TeamUpdates.getStats();
+        stats.append(Text.literal(String.format("\nTeam updates: %d changes sent as %d packets",
+                        updates.deferred(),
+                        updates.sent()))
+                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR)));
+
+        var audit = AuditLog.getStats();
+        stats.append(Text.literal(String.format("\nAudit log: %d written, %d dropped, %d pending",
+                        audit.written(),
+                        audit.dropped(),
+                        audit.pending()))
+                .setStyle(Style.EMPTY.withColor(audit.dropped() > 0 ? MessageFormatter.WARNING_COLOR : MessageFormatter.INFO_COLOR)));
+
+        RateLimiter.getLimiters().forEach((name, limiter) -> {
+            var limit = limiter.limit();
+            stats.append(Text.literal(String.format("\nRate limit %s (%s): %d allowed, %d rejected",
+                            name,
+                            limit != null ? String.format("%d, %.2f/s", limit.capacity(), limit.refillPerSecond()) : "off",
+                            limiter.allowed(),
+                            limiter.rejected()))
+                    .setStyle(Style.EMPTY.withColor(limiter.rejected() > 0 ? MessageFormatter.WARNING_COLOR : MessageFormatter.INFO_COLOR)));
+        });
+
+        if (DeferredCommands.isEnabled()) {
+            var deferred = DeferredCommands.getStats();
+            stats.append(Text.literal(String.format("\nDeferred commands: %d submitted, %d committed, %d re-run on the tick, %d pending",
+                            deferred.submitted(),
+                            deferred.committed(),
+                            deferred.revalidated(),
+                            deferred.pending()))
+                    .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR)));
+        }
+
+        sendFeedback(ctx, stats);
+        return 1;
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,146 @@
+package moe.haiiro.cakecommands.metrics;
+
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.audit.AuditLog;
+import moe.haiiro.cakecommands.events.TeamEventBus;
+import moe.haiiro.cakecommands.teams.TeamChat;
+import moe.haiiro.cakecommands.util.RateLimiter;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the command metrics to a Prometheus text file, e.g. for the node exporter's textfile collector.
+ * The file is rendered and written on a background thread.
+ */
+public class PrometheusExporter {
+    private static final int EXPORT_INTERVAL_TICKS = 20 * 60;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 1.0};
+
+    private static ExecutorService executor = null;
+    private static int ticksSinceExport = 0;
+
+    private static Path getPath() {
+        return FabricLoader.getInstance().getGameDir().resolve(CakeCommands.MODID).resolve("metrics.prom");
+    }
+
+    public static void tick() {
+        if (++ticksSinceExport < EXPORT_INTERVAL_TICKS) {
+            return;
+        }
+        ticksSinceExport = 0;
+
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                var thread = new Thread(r, "CakeCommands Metrics Exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        executor.execute(PrometheusExporter::export);
+    }
+
+    public static void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.execute(PrometheusExporter::export);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        ticksSinceExport = 0;
+    }
+
+    private static void export() {
+        var path = getPath();
+        try {
+            Files.createDirectories(path.getParent());
+            var tmp = path.resolveSibling("metrics.prom.tmp");
+            Files.writeString(tmp, render());
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            CakeCommands.LOGGER.warn("Failed to write metrics to {}", path, e);
+        }
+    }
+
+    static String render() {
+        var out = new StringBuilder(4096);
+        var commands = CommandMetrics.getCommands();
+
+        out.append("# HELP cakecommands_command_invocations_total Command invocations.\n");
+        out.append("# TYPE cakecommands_command_invocations_total counter\n");
+        commands.forEach((name, stats) -> out.append("cakecommands_command_invocations_total{command=\"").append(name).append("\"} ").append(stats.invocations()).append('\n'));
+
+        out.append("# HELP cakecommands_command_results_total Command invocations by return code.\n");
+        out.append("# TYPE cakecommands_command_results_total counter\n");
+        commands.forEach((name, stats) -> stats.results().forEach((result, count) -> out.append("cakecommands_command_results_total{command=\"").append(name).append("\",code=\"").append(result).append("\"} ").append(count).append('\n')));
+
+        out.append("# HELP cakecommands_command_exceptions_total Command invocations that threw.\n");
+        out.append("# TYPE cakecommands_command_exceptions_total counter\n");
+        commands.forEach((name, stats) -> out.append("cakecommands_command_exceptions_total{command=\"").append(name).append("\"} ").append(stats.exceptions()).append('\n'));
+
+        out.append("# HELP cakecommands_command_latency_seconds Command handler latency.\n");
+        out.append("# TYPE cakecommands_command_latency_seconds summary\n");
+        commands.forEach((name, stats) -> {
+            var latency = stats.latency();
+            for (double quantile : QUANTILES) {
+                out.append("cakecommands_command_latency_seconds{command=\"").append(name).append("\",quantile=\"").append(quantile).append("\"} ").append(latency.valueAt(quantile) / 1e9).append('\n');
+            }
+            out.append("cakecommands_command_latency_seconds_sum{command=\"").append(name).append("\"} ").append(latency.sumNanos() / 1e9).append('\n');
+            out.append("cakecommands_command_latency_seconds_count{command=\"").append(name).append("\"} ").append(latency.count()).append('\n');
+        });
+
+        var chat = TeamChat.getStats();
+        out.append("# HELP cakecommands_team_chat_messages_total Team chat messages sent.\n");
+        out.append("# TYPE cakecommands_team_chat_messages_total counter\n");
+        out.append("cakecommands_team_chat_messages_total ").append(chat.messagesSent()).append('\n');
+        out.append("# HELP cakecommands_team_chat_deliveries_total Team chat messages delivered to players.\n");
+        out.append("# TYPE cakecommands_team_chat_deliveries_total counter\n");
+        out.append("cakecommands_team_chat_deliveries_total ").append(chat.messagesDelivered()).append('\n');
+        out.append("# HELP cakecommands_team_chat_delivery_seconds_total Time spent delivering team chat.\n");
+        out.append("# TYPE cakecommands_team_chat_delivery_seconds_total counter\n");
+        out.append("cakecommands_team_chat_delivery_seconds_total ").append(chat.deliveryNanos() / 1e9).append('\n');
+
+        var events = TeamEventBus.getStats();
+        out.append("# HELP cakecommands_team_events_posted_total Team events posted.\n");
+        out.append("# TYPE cakecommands_team_events_posted_total counter\n");
+        out.append("cakecommands_team_events_posted_total ").append(events.posted()).append('\n');
+        out.append("# HELP cakecommands_team_events_processed_total Async team event handlers run.\n");
+        out.append("# TYPE cakecommands_team_events_processed_total counter\n");
+        out.append("cakecommands_team_events_processed_total ").append(events.processed()).append('\n');
+        out.append("# HELP cakecommands_team_events_dropped_total Async team event handlers skipped because the queue was full.\n");
+        out.append("# TYPE cakecommands_team_events_dropped_total counter\n");
+        out.append("cakecommands_team_events_dropped_total ").append(events.dropped()).append('\n');
+        out.append("# HELP cakecommands_team_events_queue_depth Async team event handlers waiting to run.\n");
+        out.append("# TYPE cakecommands_team_events_queue_depth gauge\n");
+        out.append("cakecommands_team_events_queue_depth ").append(events.queueDepth()).append('\n');
+
+        var audit = AuditLog.getStats();
+        out.append("# HELP cakecommands_audit_records_written_total Audit records written to disk.\n");
+        out.append("# TYPE cakecommands_audit_records_written_total counter\n");
+        out.append("cakecommands_audit_records_written_total ").append(audit.written()).append('\n');
+        out.append("# HELP cakecommands_audit_records_dropped_total Audit records dropped because the buffer was full.\n");
+        out.append("# TYPE cakecommands_audit_records_dropped_total counter\n");
+        out.append("cakecommands_audit_records_dropped_total ").append(audit.dropped()).append('\n');
+
+        var limiters = RateLimiter.getLimiters();
+        out.append("# HELP cakecommands_rate_limit_allowed_total Calls let through by a rate limiter.\n");
+        out.append("# TYPE cakecommands_rate_limit_allowed_total counter\n");
+        limiters.forEach((name, limiter) -> out.append("cakecommands_rate_limit_allowed_total{limiter=\"").append(name).append("\"} ").append(limiter.allowed()).append('\n'));
+        out.append("# HELP cakecommands_rate_limit_rejected_total Calls rejected by a rate limiter.\n");
+        out.append("# TYPE cakecommands_rate_limit_rejected_total counter\n");
+        limiters.forEach((name, limiter) -> out.append("cakecommands_rate_limit_rejected_total{limiter=\"").append(name).append("\"} ").append(limiter.rejected()).append('\n'));
+        return out.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package moe.haiiro.cakecommands.mixin;
+
+import moe.haiiro.cakecommands.teams.ScoreboardSync;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.Team;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+// ServerScoreboard overrides the member methods but calls through to these, so they see every change
+@Mixin(Scoreboard.class)
+public abstract class ScoreboardMixin {
+    @Inject(method = "addTeam", at = @At("RETURN"))
+    private void cakecommands$teamAdded(String name, CallbackInfoReturnable<Team> cir) {
+        ScoreboardSync.teamAdded((Scoreboard) (Object) this, cir.getReturnValue());
+    }
+
+    @Inject(method = "removeTeam", at = @At("TAIL"))
+    private void cakecommands$teamRemoved(Team team, CallbackInfo ci) {
+        ScoreboardSync.teamRemoved((Scoreboard) (Object) this, team);
+    }
+
+    @Inject(method = "addScoreHolderToTeam", at = @At("RETURN"))
+    private void cakecommands$memberAdded(String scoreHolderName, Team team, CallbackInfoReturnable<Boolean> cir) {
+        if (cir.getReturnValueZ()) {
+            ScoreboardSync.memberAdded((Scoreboard) (Object) this, scoreHolderName, team);
+        }
+    }
+
+    @Inject(method = "removeScoreHolderFromTeam", at = @At("TAIL"))
+    private void cakecommands$memberRemoved(String scoreHolderName, Team team, CallbackInfo ci) {
+        ScoreboardSync.memberRemoved((Scoreboard) (Object) this, scoreHolderName, team);
+    }
+}
@@ -0,0 +1,30 @@
+package moe.haiiro.cakecommands.mixin;
+
+import moe.haiiro.cakecommands.teams.TeamChat;
+import net.minecraft.network.message.SignedMessage;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerPlayNetworkHandler.class)
+public abstract class ServerPlayNetworkHandlerMixin {
+    @Shadow
+    public ServerPlayerEntity player;
+
+    @Shadow
+    protected abstract void checkForSpam();
+
+    // Runs on the server thread once the message is validated and decorated, right before it's broadcast.
+    // Team messages count towards the spam kick just like the broadcast ones they replace.
+    @Inject(method = "handleDecoratedMessage", at = @At("HEAD"), cancellable = true)
+    private void cakecommands$routeTeamChat(SignedMessage message, CallbackInfo ci) {
+        if (TeamChat.handleChat(player, message.getSignedContent())) {
+            checkForSpam();
+            ci.cancel();
+        }
+    }
+}
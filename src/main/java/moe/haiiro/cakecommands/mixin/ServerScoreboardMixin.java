@@ -0,0 +1,20 @@
+package moe.haiiro.cakecommands.mixin;
+
+import moe.haiiro.cakecommands.teams.TeamUpdates;
+import net.minecraft.scoreboard.ServerScoreboard;
+import net.minecraft.scoreboard.Team;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerScoreboard.class)
+public abstract class ServerScoreboardMixin {
+    // Custom teams are sent once at the end of the tick by TeamUpdates.flush, which calls back into here
+    @Inject(method = "updateScoreboardTeam", at = @At("HEAD"), cancellable = true)
+    private void cakecommands$deferTeamUpdate(Team team, CallbackInfo ci) {
+        if (TeamUpdates.defer(team)) {
+            ci.cancel();
+        }
+    }
+}
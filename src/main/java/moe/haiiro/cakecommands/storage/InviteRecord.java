@@ -0,0 +1,7 @@
+package moe.haiiro.cakecommands.storage;
+
+/**
+ * Persisted state of a pending invite. The invite time is in epoch seconds.
+ */
+public record InviteRecord(long id, String teamId, String playerName, long inviteTime) {
+}
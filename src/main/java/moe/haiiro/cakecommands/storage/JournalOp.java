@@ -0,0 +1,211 @@
+package moe.haiiro.cakecommands.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A single mutation of the team store. Every op overwrites a single key, so replaying an op twice is harmless.
+ */
+sealed interface JournalOp {
+    byte PUT_TEAM = 1;
+    byte REMOVE_TEAM = 2;
+    byte ADD_MEMBER = 3;
+    byte REMOVE_MEMBER = 4;
+    byte PUT_INVITE = 5;
+    byte REMOVE_INVITE = 6;
+    byte PUT_MAIL = 7;
+    byte CLEAR_MAIL = 8;
+
+    void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail);
+
+    void write(DataOutput out) throws IOException;
+
+    record PutTeam(TeamRecord team) implements JournalOp {
+        @Override
+        public void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail) {
+            teams.put(team.id(), team);
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(PUT_TEAM);
+            writeTeam(out, team);
+        }
+    }
+
+    record RemoveTeam(String teamId) implements JournalOp {
+        @Override
+        public void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail) {
+            teams.remove(teamId);
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(REMOVE_TEAM);
+            out.writeUTF(teamId);
+        }
+    }
+
+    record AddMember(String teamId, String member) implements JournalOp {
+        @Override
+        public void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail) {
+            teams.computeIfPresent(teamId, (id, team) -> team.withMember(member));
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(ADD_MEMBER);
+            out.writeUTF(teamId);
+            out.writeUTF(member);
+        }
+    }
+
+    record RemoveMember(String teamId, String member) implements JournalOp {
+        @Override
+        public void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail) {
+            teams.computeIfPresent(teamId, (id, team) -> team.withoutMember(member));
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(REMOVE_MEMBER);
+            out.writeUTF(teamId);
+            out.writeUTF(member);
+        }
+    }
+
+    record PutInvite(InviteRecord invite) implements JournalOp {
+        @Override
+        public void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail) {
+            invites.put(invite.id(), invite);
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(PUT_INVITE);
+            writeInvite(out, invite);
+        }
+    }
+
+    record RemoveInvite(long inviteId) implements JournalOp {
+        @Override
+        public void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail) {
+            invites.remove(inviteId);
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(REMOVE_INVITE);
+            out.writeLong(inviteId);
+        }
+    }
+
+    record PutMail(MailRecord entry) implements JournalOp {
+        @Override
+        public void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail) {
+            var mailbox = mail.computeIfAbsent(entry.player(), p -> new ArrayList<>());
+            mailbox.removeIf(entry::supersedes);
+            mailbox.add(entry);
+            if (mailbox.size() > TeamStore.MAX_MAIL_PER_PLAYER) {
+                mailbox.removeFirst();
+            }
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(PUT_MAIL);
+            writeMail(out, entry);
+        }
+    }
+
+    record ClearMail(String player) implements JournalOp {
+        @Override
+        public void apply(Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites, Map<String, List<MailRecord>> mail) {
+            mail.remove(player);
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(CLEAR_MAIL);
+            out.writeUTF(player);
+        }
+    }
+
+    static JournalOp read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case PUT_TEAM -> new PutTeam(readTeam(in));
+            case REMOVE_TEAM -> new RemoveTeam(in.readUTF());
+            case ADD_MEMBER -> new AddMember(in.readUTF(), in.readUTF());
+            case REMOVE_MEMBER -> new RemoveMember(in.readUTF(), in.readUTF());
+            case PUT_INVITE -> new PutInvite(readInvite(in));
+            case REMOVE_INVITE -> new RemoveInvite(in.readLong());
+            case PUT_MAIL -> new PutMail(readMail(in));
+            case CLEAR_MAIL -> new ClearMail(in.readUTF());
+            default -> throw new IOException("Unknown journal op " + type);
+        };
+    }
+
+    static void writeTeam(DataOutput out, TeamRecord team) throws IOException {
+        out.writeUTF(team.id());
+        out.writeUTF(team.name());
+        out.writeUTF(team.color());
+        out.writeUTF(team.owner());
+        out.writeBoolean(team.ownerId() != null);
+        if (team.ownerId() != null) {
+            out.writeLong(team.ownerId().getMostSignificantBits());
+            out.writeLong(team.ownerId().getLeastSignificantBits());
+        }
+        out.writeLong(team.createdAt());
+        out.writeShort(team.members().size());
+        for (String member : team.members()) {
+            out.writeUTF(member);
+        }
+    }
+
+    static TeamRecord readTeam(DataInput in) throws IOException {
+        var id = in.readUTF();
+        var name = in.readUTF();
+        var color = in.readUTF();
+        var owner = in.readUTF();
+        UUID ownerId = null;
+        if (in.readBoolean()) {
+            ownerId = new UUID(in.readLong(), in.readLong());
+        }
+        var createdAt = in.readLong();
+        int memberCount = in.readUnsignedShort();
+        List<String> members = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            members.add(in.readUTF());
+        }
+        return new TeamRecord(id, name, color, owner, ownerId, createdAt, members);
+    }
+
+    static void writeInvite(DataOutput out, InviteRecord invite) throws IOException {
+        out.writeLong(invite.id());
+        out.writeUTF(invite.teamId());
+        out.writeUTF(invite.playerName());
+        out.writeLong(invite.inviteTime());
+    }
+
+    static InviteRecord readInvite(DataInput in) throws IOException {
+        return new InviteRecord(in.readLong(), in.readUTF(), in.readUTF(), in.readLong());
+    }
+
+    static void writeMail(DataOutput out, MailRecord mail) throws IOException {
+        out.writeUTF(mail.player());
+        out.writeByte(mail.kind());
+        out.writeUTF(mail.team());
+        out.writeUTF(mail.detail());
+        out.writeLong(mail.time());
+    }
+
+    static MailRecord readMail(DataInput in) throws IOException {
+        return new MailRecord(in.readUTF(), in.readByte(), in.readUTF(), in.readUTF(), in.readLong());
+    }
+}
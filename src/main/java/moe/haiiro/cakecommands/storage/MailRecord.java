@@ -0,0 +1,38 @@
+package moe.haiiro.cakecommands.storage;
+
+/**
+ * A message waiting for an offline player. What {@code team} and {@code detail} hold depends on the kind.
+ *
+ * @param time epoch seconds (UTC) when the mail was posted
+ */
+public record MailRecord(String player, byte kind, String team, String detail, long time) {
+    // team: scoreboard team id, detail: name of the player who sent the invite
+    public static final byte INVITE = 1;
+    // team: display name of the team
+    public static final byte KICKED = 2;
+    // team: display name of the team
+    public static final byte TEAM_DELETED = 3;
+    // team: old name, detail: new name
+    public static final byte TEAM_RENAMED = 4;
+
+    public MailRecord {
+        if (player == null || player.isEmpty()) {
+            throw new IllegalArgumentException("Player cannot be null or empty!");
+        }
+
+        if (team == null) {
+            team = "";
+        }
+
+        if (detail == null) {
+            detail = "";
+        }
+    }
+
+    /**
+     * @return true if the other mail says the same thing, so only the newer one needs to be kept
+     */
+    public boolean supersedes(MailRecord other) {
+        return kind == other.kind && team.equals(other.team) && detail.equals(other.detail);
+    }
+}
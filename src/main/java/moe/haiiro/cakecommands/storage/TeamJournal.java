@@ -0,0 +1,353 @@
+package moe.haiiro.cakecommands.storage;
+
+import moe.haiiro.cakecommands.CakeCommands;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal plus snapshot files backing the {@link TeamStore}.
+ * <p>
+ * Journal records are serialized by the caller and written by a single background thread, which fsyncs once per
+ * batch of queued records. Taking a snapshot writes the full state to a new file and truncates the journal.
+ * <p>
+ * Journal record layout: {@code [int length][long seq][op][int crc32 of seq and op]}.
+ * Snapshot layout: {@code [int magic][long seq][long last invite id][int teams][teams][int invites][invites][int mail][mail][long crc32 of everything before it]}.
+ */
+class TeamJournal {
+    private static final int SNAPSHOT_MAGIC = 0x434b5331; // CKS1
+    // Far above any real op, seq plus the op itself. Longer records are never written, so reading one means the length is garbage.
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+    private static final int MAX_BATCH = 1024;
+
+    private final Path journalPath;
+    private final Path snapshotPath;
+    private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean snapshotNeeded = new AtomicBoolean();
+    private final Thread writer;
+    private FileChannel channel;
+
+    private sealed interface Task {
+    }
+
+    private record Append(byte[] record) implements Task {
+    }
+
+    private record Snapshot(long seq, long lastInviteId, Collection<TeamRecord> teams, Collection<InviteRecord> invites,
+                            Collection<MailRecord> mail) implements Task {
+    }
+
+    private record Stop() implements Task {
+    }
+
+    /**
+     * @param lastInviteId the highest invite id ever stored, so ids are never handed out twice
+     */
+    record LoadResult(long seq, long lastInviteId, int replayed) {
+    }
+
+    TeamJournal(Path directory) throws IOException {
+        this.journalPath = directory.resolve("teams.journal");
+        this.snapshotPath = directory.resolve("teams.snapshot");
+        this.channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.writer = new Thread(this::run, "CakeCommands Team Journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Reads the last snapshot and replays every journal record written after it.
+     * A torn record at the end of the journal (e.g. after a crash) is cut off.
+     */
+    static LoadResult load(Path directory, Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites,
+                           Map<String, List<MailRecord>> mail) throws IOException {
+        Files.createDirectories(directory);
+        var snapshot = readSnapshot(directory.resolve("teams.snapshot"), teams, invites, mail);
+        long seq = snapshot.seq();
+        long snapshotSeq = seq;
+        long lastInviteId = snapshot.lastInviteId();
+
+        var journal = directory.resolve("teams.journal");
+        if (!Files.exists(journal)) {
+            return new LoadResult(seq, lastInviteId, 0);
+        }
+
+        int replayed = 0;
+        long validLength = 0;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (length < 9 || length > MAX_RECORD_LENGTH) {
+                    break;
+                }
+
+                var body = new byte[length];
+                int crc;
+                try {
+                    in.readFully(body);
+                    crc = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                var checksum = new CRC32();
+                checksum.update(body);
+                if ((int) checksum.getValue() != crc) {
+                    break;
+                }
+
+                var record = new DataInputStream(new ByteArrayInputStream(body));
+                long recordSeq = record.readLong();
+                var op = JournalOp.read(record);
+                if (recordSeq > snapshotSeq) {
+                    op.apply(teams, invites, mail);
+                    if (op instanceof JournalOp.PutInvite put) {
+                        lastInviteId = Math.max(lastInviteId, put.invite().id());
+                    }
+                    seq = Math.max(seq, recordSeq);
+                    replayed++;
+                }
+                validLength += 4 + length + 4;
+            }
+        }
+
+        if (validLength < Files.size(journal)) {
+            CakeCommands.LOGGER.warn("Team journal has a damaged tail, truncating it to {} bytes", validLength);
+            try (var ch = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                ch.truncate(validLength);
+            }
+        }
+
+        return new LoadResult(seq, lastInviteId, replayed);
+    }
+
+    private static LoadResult readSnapshot(Path path, Map<String, TeamRecord> teams, Map<Long, InviteRecord> invites,
+                                           Map<String, List<MailRecord>> mail) throws IOException {
+        if (!Files.exists(path)) {
+            return new LoadResult(0, 0, 0);
+        }
+
+        var bytes = Files.readAllBytes(path);
+        if (bytes.length < 8) {
+            throw new IOException("Team snapshot is too short");
+        }
+
+        var checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length - 8);
+        if (checksum.getValue() != ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong()) {
+            throw new IOException("Team snapshot checksum mismatch");
+        }
+
+        var in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+        int magic = in.readInt();
+        if (magic != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a team snapshot");
+        }
+
+        long seq = in.readLong();
+        long lastInviteId = in.readLong();
+        int teamCount = in.readInt();
+        for (int i = 0; i < teamCount; i++) {
+            var team = JournalOp.readTeam(in);
+            teams.put(team.id(), team);
+        }
+        int inviteCount = in.readInt();
+        for (int i = 0; i < inviteCount; i++) {
+            var invite = JournalOp.readInvite(in);
+            invites.put(invite.id(), invite);
+            lastInviteId = Math.max(lastInviteId, invite.id());
+        }
+        int mailCount = in.readInt();
+        for (int i = 0; i < mailCount; i++) {
+            var entry = JournalOp.readMail(in);
+            mail.computeIfAbsent(entry.player(), p -> new ArrayList<>()).add(entry);
+        }
+        return new LoadResult(seq, lastInviteId, 0);
+    }
+
+    /**
+     * @return false if the op is too large to be journaled, it then has to go into a snapshot instead
+     */
+    boolean append(long seq, JournalOp op) {
+        try {
+            var body = new ByteArrayOutputStream(64);
+            var out = new DataOutputStream(body);
+            out.writeLong(seq);
+            op.write(out);
+
+            var bytes = body.toByteArray();
+            if (bytes.length > MAX_RECORD_LENGTH) {
+                return false;
+            }
+            var checksum = new CRC32();
+            checksum.update(bytes);
+
+            var record = ByteBuffer.allocate(4 + bytes.length + 4);
+            record.putInt(bytes.length).put(bytes).putInt((int) checksum.getValue());
+            queue.add(new Append(record.array()));
+            return true;
+        } catch (IOException e) {
+            // Only writes to memory, so this can't happen
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void snapshot(long seq, long lastInviteId, Collection<TeamRecord> teams, Collection<InviteRecord> invites, Collection<MailRecord> mail) {
+        queue.add(new Snapshot(seq, lastInviteId, teams, invites, mail));
+    }
+
+    /**
+     * @return true once after a write failed, the store then has to take a snapshot to get everything on disk again
+     */
+    boolean takeSnapshotRequest() {
+        return snapshotNeeded.getAndSet(false);
+    }
+
+    /**
+     * Writes everything still queued and waits for the writer thread to finish.
+     */
+    void close() {
+        queue.add(new Stop());
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Task> batch = new ArrayList<>(MAX_BATCH);
+        // After a failed write the journal on disk has a gap, so later records are useless until the next snapshot
+        boolean damaged = false;
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            boolean dirty = false;
+            for (Task task : batch) {
+                switch (task) {
+                    case Append append -> {
+                        if (damaged) {
+                            continue;
+                        }
+                        try {
+                            var buffer = ByteBuffer.wrap(append.record());
+                            while (buffer.hasRemaining()) {
+                                channel.write(buffer);
+                            }
+                            dirty = true;
+                        } catch (IOException e) {
+                            CakeCommands.LOGGER.error("Failed to write team journal, waiting for the next snapshot", e);
+                            damaged = true;
+                            snapshotNeeded.set(true);
+                        }
+                    }
+                    case Snapshot snapshot -> {
+                        try {
+                            writeSnapshot(snapshot);
+                            damaged = false;
+                        } catch (IOException e) {
+                            CakeCommands.LOGGER.error("Failed to write team snapshot", e);
+                            damaged = true;
+                            snapshotNeeded.set(true);
+                            continue;
+                        }
+                        try {
+                            // Records left behind are older than the snapshot and skipped on load
+                            channel.truncate(0);
+                            channel.position(0);
+                            dirty = true;
+                        } catch (IOException e) {
+                            CakeCommands.LOGGER.warn("Failed to truncate team journal", e);
+                        }
+                    }
+                    case Stop stop -> running = false;
+                }
+            }
+            batch.clear();
+
+            if (dirty) {
+                try {
+                    channel.force(false);
+                } catch (IOException e) {
+                    CakeCommands.LOGGER.error("Failed to sync team journal, waiting for the next snapshot", e);
+                    damaged = true;
+                    snapshotNeeded.set(true);
+                }
+            }
+        }
+
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            CakeCommands.LOGGER.error("Failed to close team journal", e);
+        }
+    }
+
+    private void writeSnapshot(Snapshot snapshot) throws IOException {
+        var tmp = snapshotPath.resolveSibling("teams.snapshot.tmp");
+        var checksum = new CRC32();
+        try (var file = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var bytes = new ByteArrayOutputStream(64 * (snapshot.teams().size() + snapshot.invites().size() + snapshot.mail().size()) + 32);
+            var out = new DataOutputStream(new BufferedOutputStream(bytes));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshot.seq());
+            out.writeLong(snapshot.lastInviteId());
+            out.writeInt(snapshot.teams().size());
+            for (TeamRecord team : snapshot.teams()) {
+                JournalOp.writeTeam(out, team);
+            }
+            out.writeInt(snapshot.invites().size());
+            for (InviteRecord invite : snapshot.invites()) {
+                JournalOp.writeInvite(out, invite);
+            }
+            out.writeInt(snapshot.mail().size());
+            for (MailRecord mail : snapshot.mail()) {
+                JournalOp.writeMail(out, mail);
+            }
+            out.flush();
+
+            var content = bytes.toByteArray();
+            checksum.update(content);
+            var buffer = ByteBuffer.allocate(content.length + 8).put(content).putLong(checksum.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                file.write(buffer);
+            }
+            file.force(true);
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,53 @@
+package moe.haiiro.cakecommands.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persisted state of a custom team, keyed by the scoreboard team id.
+ * {@code ownerId} is null for teams migrated from the scoreboard whose owner hasn't joined since.
+ */
+public record TeamRecord(String id, String name, String color, String owner, UUID ownerId, long createdAt, List<String> members) {
+    public TeamRecord {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("Team id cannot be null or empty!");
+        }
+
+        members = List.copyOf(members);
+    }
+
+    public TeamRecord withName(String name) {
+        return new TeamRecord(id, name, color, owner, ownerId, createdAt, members);
+    }
+
+    public TeamRecord withColor(String color) {
+        return new TeamRecord(id, name, color, owner, ownerId, createdAt, members);
+    }
+
+    public TeamRecord withOwnerId(UUID ownerId) {
+        return new TeamRecord(id, name, color, owner, ownerId, createdAt, members);
+    }
+
+    public TeamRecord withMembers(List<String> members) {
+        return new TeamRecord(id, name, color, owner, ownerId, createdAt, members);
+    }
+
+    public TeamRecord withMember(String member) {
+        if (members.contains(member)) {
+            return this;
+        }
+        var updated = new ArrayList<>(members);
+        updated.add(member);
+        return withMembers(updated);
+    }
+
+    public TeamRecord withoutMember(String member) {
+        if (!members.contains(member)) {
+            return this;
+        }
+        var updated = new ArrayList<>(members);
+        updated.remove(member);
+        return withMembers(updated);
+    }
+}
@@ -0,0 +1,224 @@
+package moe.haiiro.cakecommands.storage;
+
+import moe.haiiro.cakecommands.CakeCommands;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Persistent store for team metadata, memberships, pending invites and mail for offline players, saved in the world folder.
+ * <p>
+ * Every mutation is applied in memory and appended to a {@link TeamJournal}, which is written and fsynced off the
+ * server thread. Once enough mutations pile up, the state is compacted into a snapshot, so loading only has to
+ * replay what changed since then. Only touch this from the server thread.
+ */
+public class TeamStore {
+    public static final int MAX_MAIL_PER_PLAYER = 16;
+    private static final int COMPACT_AFTER_OPS = 4096;
+
+    private static final Map<String, TeamRecord> teams = new HashMap<>();
+    private static final Map<Long, InviteRecord> invites = new HashMap<>();
+    private static final Map<String, List<MailRecord>> mail = new HashMap<>();
+    // Invites waiting in mailboxes, by scoreboard team id
+    private static final Map<String, Integer> mailInvitesByTeam = new HashMap<>();
+    private static TeamJournal journal = null;
+    private static long seq = 0;
+    private static long lastInviteId = 0;
+    private static int opsSinceSnapshot = 0;
+
+    public static void load(Path directory) {
+        teams.clear();
+        invites.clear();
+        mail.clear();
+        mailInvitesByTeam.clear();
+        lastInviteId = 0;
+        try {
+            var result = TeamJournal.load(directory, teams, invites, mail);
+            seq = result.seq();
+            lastInviteId = result.lastInviteId();
+            mail.values().forEach(mailbox -> countMailInvites(mailbox, 1));
+            opsSinceSnapshot = result.replayed();
+            journal = new TeamJournal(directory);
+            CakeCommands.LOGGER.info("Loaded {} teams, {} invites and {} mailboxes ({} journal entries replayed)", teams.size(), invites.size(), mail.size(), result.replayed());
+        } catch (IOException e) {
+            CakeCommands.LOGGER.error("Failed to load team store, team data will not be saved!", e);
+            journal = null;
+        }
+    }
+
+    /**
+     * Compacts the journal into a snapshot and stops the writer thread.
+     */
+    public static void close() {
+        if (journal == null) {
+            return;
+        }
+
+        if (opsSinceSnapshot > 0) {
+            compact();
+        }
+        journal.close();
+        journal = null;
+        teams.clear();
+        invites.clear();
+        mail.clear();
+        mailInvitesByTeam.clear();
+        lastInviteId = 0;
+    }
+
+    public static void compact() {
+        if (journal == null) {
+            return;
+        }
+        var allMail = new ArrayList<MailRecord>();
+        mail.values().forEach(allMail::addAll);
+        journal.snapshot(seq, lastInviteId, List.copyOf(teams.values()), List.copyOf(invites.values()), allMail);
+        opsSinceSnapshot = 0;
+    }
+
+    public static TeamRecord getTeam(String teamId) {
+        return teams.get(teamId);
+    }
+
+    public static Collection<TeamRecord> getTeams() {
+        return Collections.unmodifiableCollection(teams.values());
+    }
+
+    public static Collection<InviteRecord> getInvites() {
+        return Collections.unmodifiableCollection(invites.values());
+    }
+
+    public static void putTeam(TeamRecord team) {
+        record(new JournalOp.PutTeam(team));
+    }
+
+    public static void updateTeam(String teamId, UnaryOperator<TeamRecord> update) {
+        var team = teams.get(teamId);
+        if (team != null) {
+            putTeam(update.apply(team));
+        }
+    }
+
+    public static void removeTeam(String teamId) {
+        if (teams.containsKey(teamId)) {
+            record(new JournalOp.RemoveTeam(teamId));
+        }
+    }
+
+    public static void addMember(String teamId, String member) {
+        record(new JournalOp.AddMember(teamId, member));
+    }
+
+    public static void removeMember(String teamId, String member) {
+        record(new JournalOp.RemoveMember(teamId, member));
+    }
+
+    public static void putInvite(InviteRecord invite) {
+        lastInviteId = Math.max(lastInviteId, invite.id());
+        record(new JournalOp.PutInvite(invite));
+    }
+
+    /**
+     * @return the highest invite id ever stored for this world, including invites that are gone since
+     */
+    public static long getLastInviteId() {
+        return lastInviteId;
+    }
+
+    public static void removeInvite(long inviteId) {
+        if (invites.containsKey(inviteId)) {
+            record(new JournalOp.RemoveInvite(inviteId));
+        }
+    }
+
+    public static void putMail(MailRecord entry) {
+        record(new JournalOp.PutMail(entry));
+    }
+
+    public static boolean hasMail(String player) {
+        return mail.containsKey(player);
+    }
+
+    public static int mailboxCount() {
+        return mail.size();
+    }
+
+    /**
+     * @return how many offline players have an invite to the team waiting
+     */
+    public static int mailInviteCount(String teamId) {
+        return mailInvitesByTeam.getOrDefault(teamId, 0);
+    }
+
+    /**
+     * Removes and returns everything in a player's mailbox, oldest first.
+     */
+    public static List<MailRecord> takeMail(String player) {
+        var mailbox = mail.get(player);
+        if (mailbox == null) {
+            return List.of();
+        }
+        var taken = List.copyOf(mailbox);
+        record(new JournalOp.ClearMail(player));
+        return taken;
+    }
+
+    /**
+     * Drops the mailboxes of players who haven't gotten anything since {@code cutoff} (epoch seconds).
+     */
+    public static int pruneMail(long cutoff) {
+        var stale = new ArrayList<String>();
+        mail.forEach((player, mailbox) -> {
+            if (mailbox.getLast().time() < cutoff) {
+                stale.add(player);
+            }
+        });
+        stale.forEach(player -> record(new JournalOp.ClearMail(player)));
+        return stale.size();
+    }
+
+    private static void record(JournalOp op) {
+        var mailPlayer = switch (op) {
+            case JournalOp.PutMail put -> put.entry().player();
+            case JournalOp.ClearMail clear -> clear.player();
+            default -> null;
+        };
+        if (mailPlayer != null) {
+            countMailInvites(mail.get(mailPlayer), -1);
+        }
+        op.apply(teams, invites, mail);
+        if (mailPlayer != null) {
+            countMailInvites(mail.get(mailPlayer), 1);
+        }
+        if (journal == null) {
+            return;
+        }
+
+        if (!journal.append(++seq, op)) {
+            CakeCommands.LOGGER.warn("Team store change {} is too large for the journal, writing a snapshot instead", seq);
+            compact();
+        } else if (journal.takeSnapshotRequest()) {
+            compact();
+        } else if (++opsSinceSnapshot >= COMPACT_AFTER_OPS) {
+            compact();
+        }
+    }
+
+    private static void countMailInvites(List<MailRecord> mailbox, int delta) {
+        if (mailbox == null) {
+            return;
+        }
+        for (MailRecord entry : mailbox) {
+            if (entry.kind() == MailRecord.INVITE) {
+                mailInvitesByTeam.merge(entry.team(), delta, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+    }
+}
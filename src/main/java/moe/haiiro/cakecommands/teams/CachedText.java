@@ -0,0 +1,9 @@
+package moe.haiiro.cakecommands.teams;
+
+import net.minecraft.text.Text;
+
+/**
+ * Text rendered for a specific version of a team.
+ */
+record CachedText(long version, Text text) {
+}
@@ -0,0 +1,313 @@
+package moe.haiiro.cakecommands.teams;
+
+import com.mojang.authlib.GameProfile;
+import com.mojang.brigadier.context.CommandContext;
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.metrics.CommandMetrics;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.ServerCommandSource;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToIntFunction;
+
+import static moe.haiiro.cakecommands.util.CommandUtils.sendFeedback;
+
+/**
+ * Plans the accept, leave and kick commands on virtual threads against the {@link LiveTeams} and applies the plans
+ * at the start of the next tick, re-running a command on the tick if anything it read changed since it was submitted.
+ */
+public class DeferredCommands {
+    @FunctionalInterface
+    interface Planner {
+        Plan plan(LiveTeams live, CommandContext<ServerCommandSource> ctx, GameProfile player);
+    }
+
+    /**
+     * @param current checked on the server thread right before applying, false if the plan is based on outdated state
+     */
+    record Plan(BooleanSupplier current, ToIntFunction<CommandContext<ServerCommandSource>> apply) {
+    }
+
+    public record Stats(long submitted, long committed, long revalidated, int pending) {
+    }
+
+    private record Pending(CommandContext<ServerCommandSource> ctx, String name, long start, Plan plan,
+                           ToIntFunction<CommandContext<ServerCommandSource>> fallback) {
+    }
+
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private static final AtomicLong submitted = new AtomicLong();
+    private static final AtomicLong committed = new AtomicLong();
+    private static final AtomicLong revalidated = new AtomicLong();
+
+    // Updated one key at a time from the registry and invite store, read by the planners
+    private static final Map<String, LiveTeams.TeamView> teamsById = new ConcurrentHashMap<>();
+    private static final Map<UUID, LiveTeams.TeamView> teamsByOwner = new ConcurrentHashMap<>();
+    private static final Map<String, LiveTeams.TeamView> teamsByMember = new ConcurrentHashMap<>();
+    private static final Map<Long, TeamInvite> invites = new ConcurrentHashMap<>();
+    // Bumped for every change to the teams or invites, only touched on the server thread
+    private static long stamp = 0;
+
+    public static final TeamRegistry.Listener LISTENER = new TeamRegistry.Listener() {
+        @Override
+        public void teamAdded(Team team) {
+            updateView(team);
+        }
+
+        @Override
+        public void teamRemoved(Team team) {
+            // The meta is already gone, the view still knows the owner
+            var removed = teamsById.get(team.getName());
+            if (removed != null && removed.team() == team) {
+                teamsById.remove(team.getName(), removed);
+                if (removed.ownerId() != null) {
+                    teamsByOwner.computeIfPresent(removed.ownerId(), (o, view) -> view.team() == team ? null : view);
+                }
+            }
+            for (String member : team.getPlayerList()) {
+                teamsByMember.computeIfPresent(member, (m, view) -> view.team() == team ? null : view);
+            }
+            stamp++;
+        }
+
+        @Override
+        public void memberRemoved(String member, Team team) {
+            teamsByMember.computeIfPresent(member, (m, view) -> view.team() == team ? null : view);
+            stamp++;
+        }
+
+        @Override
+        public void teamChanged(Team team) {
+            updateView(team);
+        }
+
+        @Override
+        public void metaChanged(Team team, TeamMeta previous) {
+            if (previous.ownerId() != null) {
+                teamsByOwner.computeIfPresent(previous.ownerId(), (o, view) -> view.team() == team ? null : view);
+            }
+            stamp++;
+        }
+
+        @Override
+        public void cleared() {
+            teamsById.clear();
+            teamsByOwner.clear();
+            teamsByMember.clear();
+            stamp++;
+        }
+    };
+
+    public static boolean isEnabled() {
+        return ConfigManager.get().deferredCommands();
+    }
+
+    static void inviteAdded(TeamInvite invite) {
+        invites.put(invite.id(), invite);
+        stamp++;
+    }
+
+    static void inviteRemoved(TeamInvite invite) {
+        invites.remove(invite.id(), invite);
+        stamp++;
+    }
+
+    static void invitesCleared() {
+        invites.clear();
+        stamp++;
+    }
+
+    // A new view for every version of a team, it only costs as much as the team has members
+    private static void updateView(Team team) {
+        var teamMeta = TeamRegistry.getMeta(team);
+        if (teamMeta == null) {
+            return;
+        }
+
+        var view = new LiveTeams.TeamView(team, team.getName(), teamMeta.ownerId(), Set.copyOf(team.getPlayerList()), TeamRegistry.getVersion(team));
+        teamsById.put(view.id(), view);
+        if (view.ownerId() != null) {
+            // Same rule as the registry, the first team of an owner keeps the index
+            teamsByOwner.merge(view.ownerId(), view, (old, updated) -> old.team() == team ? updated : old);
+        }
+        for (String member : view.members()) {
+            teamsByMember.put(member, view);
+        }
+        stamp++;
+    }
+
+    /**
+     * Plans the command off the server thread if deferring is enabled, otherwise runs {@code fallback} right away.
+     * Either way the command is recorded in {@link CommandMetrics} under {@code name} once it's done, deferred ones
+     * with the time from submitting to applying.
+     */
+    static int run(CommandContext<ServerCommandSource> ctx, String name, Planner planner,
+                   ToIntFunction<CommandContext<ServerCommandSource>> fallback) {
+        long start = System.nanoTime();
+        var player = ctx.getSource().getPlayer();
+        if (!isEnabled() || player == null) {
+            return apply(name, start, fallback, ctx);
+        }
+
+        var live = new LiveTeams(stamp, teamsById, teamsByOwner, teamsByMember, invites);
+        var profile = player.getGameProfile();
+        submitted.incrementAndGet();
+        executor.execute(() -> {
+            Plan plan = null;
+            try {
+                plan = planner.plan(live, ctx, profile);
+            } catch (RuntimeException e) {
+                CakeCommands.LOGGER.error("Failed to plan /{}", ctx.getInput(), e);
+            }
+            pending.add(new Pending(ctx, name, start, plan, fallback));
+        });
+        return 1;
+    }
+
+    /**
+     * Applies every plan that finished since the last tick. Runs at the start of the tick.
+     */
+    public static void commit(MinecraftServer server) {
+        Pending next;
+        while ((next = pending.poll()) != null) {
+            // Left over from a previous server in singleplayer
+            if (next.ctx().getSource().getServer() != server) {
+                continue;
+            }
+
+            try {
+                if (next.plan() != null && next.plan().current().getAsBoolean()) {
+                    apply(next.name(), next.start(), next.plan().apply(), next.ctx());
+                    committed.incrementAndGet();
+                } else {
+                    apply(next.name(), next.start(), next.fallback(), next.ctx());
+                    revalidated.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                CakeCommands.LOGGER.error("Failed to apply /{}", next.ctx().getInput(), e);
+            }
+        }
+    }
+
+    private static int apply(String name, long start, ToIntFunction<CommandContext<ServerCommandSource>> command,
+                             CommandContext<ServerCommandSource> ctx) {
+        int result;
+        try {
+            result = command.applyAsInt(ctx);
+        } catch (RuntimeException e) {
+            CommandMetrics.recordException(name, System.nanoTime() - start);
+            throw e;
+        }
+        CommandMetrics.record(name, result, System.nanoTime() - start);
+        return result;
+    }
+
+    static Plan planAccept(LiveTeams live, CommandContext<ServerCommandSource> ctx, GameProfile profile) {
+        var player = profile.getName();
+        long inviteId = ctx.getArgument("invite_id", Long.class);
+        var invite = live.invites().get(inviteId);
+
+        if (invite == null || !invite.playerName().equals(player)) {
+            return reject(() -> isCurrent(live), "Invite not found!");
+        }
+
+        if (invite.isExpired(LocalDateTime.now())) {
+            return new Plan(() -> InviteStore.get(inviteId) == invite, c -> {
+                sendFeedback(c, "Invite has expired!", MessageFormatter.ERROR_COLOR);
+                InviteStore.remove(inviteId);
+                return 0;
+            });
+        }
+
+        var team = live.teamsById().get(invite.team().getName());
+        if (team == null || team.team() != invite.team()) {
+            return new Plan(() -> InviteStore.get(inviteId) == invite && TeamRegistry.getVersion(invite.team()) == 0, c -> {
+                sendFeedback(c, "Team not found!", MessageFormatter.ERROR_COLOR);
+                InviteStore.remove(inviteId);
+                return 0;
+            });
+        }
+
+        if (team.members().contains(player)) {
+            return reject(() -> InviteStore.get(inviteId) == invite && isUnchanged(team), "Player is already in the team!");
+        }
+
+        if (team.members().size() >= ConfigManager.get().maxMembers()) {
+            return reject(() -> InviteStore.get(inviteId) == invite && isUnchanged(team), "Team is full!");
+        }
+
+        return new Plan(() -> InviteStore.get(inviteId) == invite && isUnchanged(team),
+                c -> TeamManager.completeAccept(c, c.getSource().getPlayer(), invite));
+    }
+
+    static Plan planLeave(LiveTeams live, CommandContext<ServerCommandSource> ctx, GameProfile profile) {
+        var player = profile.getName();
+        var team = live.teamsByMember().get(player);
+        if (team == null) {
+            return reject(() -> isCurrent(live), "You are not in a team!");
+        }
+
+        return new Plan(() -> TeamRegistry.getByMember(player) == team.team() && isUnchanged(team),
+                c -> TeamManager.completeLeave(c, c.getSource().getPlayer(), team.team()));
+    }
+
+    static Plan planKick(LiveTeams live, CommandContext<ServerCommandSource> ctx, GameProfile profile) {
+        String target = ctx.getArgument("player", String.class);
+        if (target == null || target.isEmpty()) {
+            return reject(() -> true, "Target player not found!");
+        }
+
+        var team = live.teamsByOwner().get(profile.getId());
+        if (team == null) {
+            return reject(() -> isCurrent(live), "You don't own a team!");
+        }
+
+        if (!team.members().contains(target)) {
+            return reject(() -> TeamRegistry.getByOwner(profile.getId()) == team.team() && isUnchanged(team), "Player is not in the team!");
+        }
+
+        return new Plan(() -> TeamRegistry.getByOwner(profile.getId()) == team.team() && isUnchanged(team),
+                c -> TeamManager.completeKick(c, profile.getName(), target, team.team()));
+    }
+
+    private static Plan reject(BooleanSupplier current, String message) {
+        return new Plan(current, c -> {
+            sendFeedback(c, message, MessageFormatter.ERROR_COLOR);
+            return 0;
+        });
+    }
+
+    private static boolean isCurrent(LiveTeams live) {
+        return live.stamp() == stamp;
+    }
+
+    private static boolean isUnchanged(LiveTeams.TeamView team) {
+        return TeamRegistry.getVersion(team.team()) == team.version();
+    }
+
+    public static Stats getStats() {
+        return new Stats(submitted.get(), committed.get(), revalidated.get(), pending.size());
+    }
+
+    public static void clear() {
+        pending.clear();
+        teamsById.clear();
+        teamsByOwner.clear();
+        teamsByMember.clear();
+        invites.clear();
+    }
+}
@@ -0,0 +1,168 @@
+package moe.haiiro.cakecommands.teams;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.minecraft.command.CommandSource;
+import net.minecraft.server.command.CommandOutput;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.Vec2f;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the help pages from the registered command tree, so they always list exactly the commands that exist.
+ * The tree is walked once when the commands are registered and the pages are built for every permission level,
+ * checking each node's requirement against a source that has nothing but that level, which is all our commands check.
+ */
+public class HelpRenderer {
+    private static final int MAX_LEVEL = 4;
+    // Keyed by the literals leading to a node, arguments are left out
+    private static final Map<String, String> DESCRIPTIONS = Map.ofEntries(
+            Map.entry("cteam help", "Show the commands, or only the ones under a subcommand!"),
+            Map.entry("cteam create", "Create a new team!"),
+            Map.entry("cteam delete", "Delete your team!"),
+            Map.entry("cteam edit color", "Change your team's color!"),
+            Map.entry("cteam edit name", "Change your team's name!"),
+            Map.entry("cteam invite", "Invite a player to your team!"),
+            Map.entry("cteam kick", "Kick a player from your team!"),
+            Map.entry("cteam list", "List all teams!"),
+            Map.entry("cteam accept", "Accept an invite to a team!"),
+            Map.entry("cteam decline", "Decline an invite to a team!"),
+            Map.entry("cteam leave", "Leave your team!"),
+            Map.entry("cteam info", "Get info about a team!"),
+            Map.entry("cteam forcedelete", "Delete any team!"),
+            Map.entry("cteam admin import", "Import teams from the transfer folder!"),
+            Map.entry("cteam admin export", "Export all teams to the transfer folder!"),
+            Map.entry("cteam admin sweep", "List the teams a sweep would remove!"),
+            Map.entry("cteam admin sweep run", "Archive and remove abandoned teams!"),
+            Map.entry("cteam admin audit", "Show the latest changes to a team!"),
+            Map.entry("cteam stats", "Show command and team statistics!"),
+            Map.entry("cteam chat toggle", "Send your chat to your team instead of everyone!"),
+            Map.entry("cteam msg", "Send a message to your team!"),
+            Map.entry("ctm", "Send a message to your team!"));
+
+    private static final Text CREDITS = Text.literal("\n\nCakeCommands by ")
+            .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
+            .append(Text.literal("HaiiroMajo").setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR)))
+            .append(Text.literal(" with ").setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR)))
+            .append(Text.literal("<3").setStyle(Style.EMPTY.withColor(MessageFormatter.ERROR_COLOR)));
+
+    public static final SuggestionProvider<ServerCommandSource> SUBCOMMANDS = (ctx, builder) ->
+            CommandSource.suggestMatching(getSubcommands(ctx.getSource()), builder);
+
+    private record Entry(String subcommand, String usage, String description) {
+    }
+
+    // Both indexed by permission level
+    private static List<Text> overviews = List.of();
+    private static List<Map<String, Text>> pages = List.of();
+
+    public static void build(CommandDispatcher<ServerCommandSource> dispatcher, String... roots) {
+        var newOverviews = new ArrayList<Text>();
+        var newPages = new ArrayList<Map<String, Text>>();
+        for (int level = 0; level <= MAX_LEVEL; level++) {
+            var source = new ServerCommandSource(CommandOutput.DUMMY, Vec3d.ZERO, Vec2f.ZERO, null, level, "Help", Text.literal("Help"), null, null);
+            var entries = new ArrayList<Entry>();
+            for (String root : roots) {
+                var node = dispatcher.getRoot().getChild(root);
+                if (node != null && node.canUse(source)) {
+                    collect(node, "/" + root, root, null, source, entries);
+                }
+            }
+
+            var bySubcommand = new LinkedHashMap<String, List<Entry>>();
+            for (Entry entry : entries) {
+                if (entry.subcommand() != null) {
+                    bySubcommand.computeIfAbsent(entry.subcommand(), s -> new ArrayList<>()).add(entry);
+                }
+            }
+            var levelPages = new LinkedHashMap<String, Text>();
+            bySubcommand.forEach((subcommand, subEntries) ->
+                    levelPages.put(subcommand, render("/cteam " + subcommand + ":", subEntries)));
+
+            newOverviews.add(render("Commands:", entries).append(CREDITS));
+            newPages.add(Collections.unmodifiableMap(levelPages));
+        }
+
+        overviews = List.copyOf(newOverviews);
+        pages = List.copyOf(newPages);
+    }
+
+    private static void collect(CommandNode<ServerCommandSource> node, String usage, String key, String subcommand,
+                                ServerCommandSource source, List<Entry> entries) {
+        var last = node;
+        if (node.getCommand() != null) {
+            // Optional trailing arguments go on the same line, like /cteam list [<page>]
+            var line = new StringBuilder(usage);
+            while (last.getChildren().size() == 1) {
+                var child = last.getChildren().iterator().next();
+                if (!(child instanceof ArgumentCommandNode) || child.getCommand() == null || !child.canUse(source)) {
+                    break;
+                }
+                line.append(" [<").append(child.getName()).append(">]");
+                last = child;
+            }
+            entries.add(new Entry(subcommand, line.toString(), DESCRIPTIONS.get(key)));
+        }
+
+        for (CommandNode<ServerCommandSource> child : last.getChildren()) {
+            if (!child.canUse(source)) {
+                continue;
+            }
+            if (child instanceof ArgumentCommandNode) {
+                collect(child, usage + " <" + child.getName() + ">", key, subcommand, source, entries);
+            } else {
+                collect(child, usage + " " + child.getName(), key + " " + child.getName(),
+                        subcommand == null && key.equals("cteam") ? child.getName() : subcommand, source, entries);
+            }
+        }
+    }
+
+    private static MutableText render(String title, List<Entry> entries) {
+        var text = Text.literal(title).setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
+        for (Entry entry : entries) {
+            var line = Text.literal("\n" + entry.usage()).setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
+            if (entry.description() != null) {
+                line.append(Text.literal(" - " + entry.description()).setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR)));
+            }
+            text.append(line);
+        }
+        return text;
+    }
+
+    private static int getLevel(ServerCommandSource source) {
+        for (int level = MAX_LEVEL; level > 0; level--) {
+            if (source.hasPermissionLevel(level)) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
+    public static Text getOverview(ServerCommandSource source) {
+        return overviews.isEmpty() ? Text.empty() : overviews.get(getLevel(source));
+    }
+
+    /**
+     * @return the help for one subcommand, or null if it doesn't exist or the source can't use it
+     */
+    public static Text getPage(ServerCommandSource source, String subcommand) {
+        return pages.isEmpty() ? null : pages.get(getLevel(source)).get(subcommand);
+    }
+
+    public static Set<String> getSubcommands(ServerCommandSource source) {
+        return pages.isEmpty() ? Set.of() : pages.get(getLevel(source)).keySet();
+    }
+}
@@ -0,0 +1,140 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.storage.InviteRecord;
+import moe.haiiro.cakecommands.storage.TeamStore;
+import net.minecraft.scoreboard.Team;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pending team invites, indexed by id and by invited player.
+ * Expired invites are evicted by a sweep that runs every few seconds from the server tick.
+ */
+public class InviteStore {
+    private static final int SWEEP_INTERVAL_TICKS = 20 * 5;
+
+    private static final AtomicLong nextId = new AtomicLong(1);
+    private static final Map<Long, TeamInvite> invitesById = new HashMap<>();
+    private static final Map<String, Set<Long>> invitesByPlayer = new HashMap<>();
+    // Every invite lives for the same configured amount of time, so creation order is also expiry order.
+    // Invites removed early stay queued until the sweep reaches them.
+    private static final ArrayDeque<TeamInvite> expiryQueue = new ArrayDeque<>();
+    private static int ticksSinceSweep = 0;
+
+    public static TeamInvite create(Team team, String playerName) {
+        var invite = new TeamInvite(nextId.getAndIncrement(), team, playerName, LocalDateTime.now());
+        add(invite);
+        TeamStore.putInvite(new InviteRecord(invite.id(), team.getName(), playerName, invite.inviteTime().toEpochSecond(ZoneOffset.UTC)));
+        return invite;
+    }
+
+    /**
+     * Puts back an invite loaded from the {@link TeamStore}.
+     */
+    public static void restore(InviteRecord record, Team team) {
+        var invite = new TeamInvite(record.id(), team, record.playerName(), LocalDateTime.ofEpochSecond(record.inviteTime(), 0, ZoneOffset.UTC));
+        nextId.accumulateAndGet(record.id() + 1, Math::max);
+        add(invite);
+    }
+
+    /**
+     * Continues the ids after the highest one the {@link TeamStore} has seen, so a restart never reuses one.
+     */
+    public static void restoreNextId(long lastId) {
+        nextId.accumulateAndGet(lastId + 1, Math::max);
+    }
+
+    private static void add(TeamInvite invite) {
+        invitesById.put(invite.id(), invite);
+        invitesByPlayer.computeIfAbsent(invite.playerName(), p -> new LinkedHashSet<>()).add(invite.id());
+        expiryQueue.addLast(invite);
+        DeferredCommands.inviteAdded(invite);
+    }
+
+    public static TeamInvite get(long id) {
+        return invitesById.get(id);
+    }
+
+    public static TeamInvite remove(long id) {
+        var invite = invitesById.remove(id);
+        if (invite == null) {
+            return null;
+        }
+        TeamStore.removeInvite(id);
+        DeferredCommands.inviteRemoved(invite);
+
+        var ids = invitesByPlayer.get(invite.playerName());
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                invitesByPlayer.remove(invite.playerName());
+            }
+        }
+        return invite;
+    }
+
+    public static Collection<TeamInvite> getForPlayer(String playerName) {
+        var ids = invitesByPlayer.get(playerName);
+        if (ids == null) {
+            return List.of();
+        }
+
+        List<TeamInvite> invites = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            invites.add(invitesById.get(id));
+        }
+        return invites;
+    }
+
+    public static Collection<TeamInvite> getAll() {
+        return Collections.unmodifiableCollection(invitesById.values());
+    }
+
+    public static int size() {
+        return invitesById.size();
+    }
+
+    public static void tick() {
+        if (++ticksSinceSweep < SWEEP_INTERVAL_TICKS) {
+            return;
+        }
+        ticksSinceSweep = 0;
+        sweep(LocalDateTime.now());
+    }
+
+    public static int sweep(LocalDateTime now) {
+        int evicted = 0;
+        while (!expiryQueue.isEmpty()) {
+            var head = expiryQueue.peekFirst();
+            if (invitesById.get(head.id()) == head && !head.isExpired(now)) {
+                break;
+            }
+
+            expiryQueue.pollFirst();
+            if (remove(head.id()) != null) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public static void clear() {
+        invitesById.clear();
+        invitesByPlayer.clear();
+        expiryQueue.clear();
+        ticksSinceSweep = 0;
+        nextId.set(1);
+        DeferredCommands.invitesCleared();
+    }
+}
@@ -0,0 +1,22 @@
+package moe.haiiro.cakecommands.teams;
+
+import net.minecraft.scoreboard.Team;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A live view of the teams and invites for {@link DeferredCommands} plans off the server thread, not a snapshot.
+ * The maps change a key at a time while a plan reads them, so two reads can disagree. Each {@link TeamView} on its own
+ * is immutable, and every outcome of a plan, messages included, is checked on the tick against what it read.
+ * The {@link Team} handles are only used for identity and must not be read from other threads.
+ *
+ * @param stamp the {@link DeferredCommands} change stamp when the command was submitted, the maps matched it then
+ */
+record LiveTeams(long stamp, Map<String, TeamView> teamsById, Map<UUID, TeamView> teamsByOwner,
+                    Map<String, TeamView> teamsByMember, Map<Long, TeamInvite> invites) {
+
+    record TeamView(Team team, String id, UUID ownerId, Set<String> members, long version) {
+    }
+}
@@ -0,0 +1,156 @@
+package moe.haiiro.cakecommands.teams;
+
+import com.mojang.authlib.GameProfile;
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.storage.MailRecord;
+import moe.haiiro.cakecommands.storage.TeamStore;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.util.Uuids;
+import net.minecraft.util.WorldSavePath;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+/**
+ * Invites and team notifications for offline players, kept in the {@link TeamStore} and delivered as one message
+ * when the player joins. Each mailbox holds at most {@link TeamStore#MAX_MAIL_PER_PLAYER} entries, mail expires
+ * after {@code mailExpiryDays}, and new mailboxes stop being opened once {@code maxMailboxes} players have mail waiting.
+ * Only players who have played on the world before can get mail.
+ */
+public class Mailbox {
+    private static final Pattern PLAYER_NAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_]{3,16}$");
+    private static final int PRUNE_INTERVAL_TICKS = 20 * 60 * 10;
+
+    private static int ticksSincePrune = 0;
+
+    public static boolean isValidPlayerName(String name) {
+        return PLAYER_NAME_PATTERN.matcher(name).matches();
+    }
+
+    /**
+     * Looks up a player who isn't online by name, the same way vanilla commands do.
+     *
+     * @return the name as the player spells it, or null if they have never played on this world
+     */
+    public static String findKnownPlayer(MinecraftServer server, String name) {
+        if (!isValidPlayerName(name)) {
+            return null;
+        }
+
+        GameProfile profile;
+        if (server.isOnlineMode()) {
+            var userCache = server.getUserCache();
+            profile = userCache != null ? userCache.findByName(name).orElse(null) : null;
+        } else {
+            profile = new GameProfile(Uuids.getOfflinePlayerUuid(name), name);
+        }
+        if (profile == null) {
+            return null;
+        }
+
+        var playerData = server.getSavePath(WorldSavePath.PLAYERDATA).resolve(profile.getId() + ".dat");
+        return Files.exists(playerData) ? profile.getName() : null;
+    }
+
+    /**
+     * Shows the mail right away if the player is online, otherwise keeps it until they join.
+     *
+     * @return false if the mail had to be dropped because there are too many mailboxes
+     */
+    public static boolean post(MinecraftServer server, String player, byte kind, String team, String detail) {
+        var mail = new MailRecord(player, kind, team, detail, Instant.now().getEpochSecond());
+        var online = server.getPlayerManager().getPlayer(player);
+        if (online != null) {
+            var text = render(server, online, mail);
+            if (text != null) {
+                online.sendMessage(MessageFormatter.prefixMessage(text));
+            }
+            return true;
+        }
+
+        if (!TeamStore.hasMail(player) && TeamStore.mailboxCount() >= ConfigManager.get().maxMailboxes()) {
+            CakeCommands.LOGGER.warn("Too many mailboxes, dropped mail for {}", player);
+            return false;
+        }
+        TeamStore.putMail(mail);
+        return true;
+    }
+
+    public static void playerJoined(MinecraftServer server, ServerPlayerEntity player) {
+        var mail = TeamStore.takeMail(player.getName().getString());
+        if (mail.isEmpty()) {
+            return;
+        }
+
+        var cutoff = Instant.now().minus(ConfigManager.get().mailExpiry()).getEpochSecond();
+        var text = Text.literal("While you were away:")
+                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
+        int shown = 0;
+        for (MailRecord entry : mail) {
+            if (entry.time() < cutoff) {
+                continue;
+            }
+
+            var line = render(server, player, entry);
+            if (line != null) {
+                text.append(Text.literal("\n")).append(line);
+                shown++;
+            }
+        }
+
+        if (shown > 0) {
+            player.sendMessage(MessageFormatter.prefixMessage(text));
+        }
+    }
+
+    public static void tick() {
+        if (++ticksSincePrune < PRUNE_INTERVAL_TICKS) {
+            return;
+        }
+        ticksSincePrune = 0;
+        prune();
+    }
+
+    public static void clear() {
+        ticksSincePrune = 0;
+    }
+
+    /**
+     * Drops mailboxes nobody has collected in time. Runs when the store is loaded and every few minutes after that.
+     */
+    public static void prune() {
+        int pruned = TeamStore.pruneMail(Instant.now().minus(ConfigManager.get().mailExpiry()).getEpochSecond());
+        if (pruned > 0) {
+            CakeCommands.LOGGER.info("Dropped {} expired mailboxes", pruned);
+        }
+    }
+
+    // Returns null for mail that doesn't apply anymore, e.g. an invite to a team that got deleted
+    private static MutableText render(MinecraftServer server, ServerPlayerEntity player, MailRecord mail) {
+        return switch (mail.kind()) {
+            case MailRecord.INVITE -> {
+                var team = server.getScoreboard().getTeam(mail.team());
+                if (team == null || TeamRegistry.getMeta(team) == null || team.getPlayerList().contains(player.getName().getString())) {
+                    yield null;
+                }
+                // Invites only last a few minutes, so the real one is created when the player can answer it
+                var invite = TeamManager.createInvite(team, player.getName().getString(), mail.detail());
+                yield TeamManager.inviteText(mail.detail(), invite);
+            }
+            case MailRecord.KICKED -> Text.literal("You have been kicked from " + mail.team() + "!")
+                    .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR));
+            case MailRecord.TEAM_DELETED -> Text.literal("Your team " + mail.team() + " has been deleted!")
+                    .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR));
+            case MailRecord.TEAM_RENAMED -> Text.literal("Your team " + mail.team() + " has been renamed to " + mail.detail() + "!")
+                    .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
+            default -> null;
+        };
+    }
+}
@@ -11,14 +11,6 @@ import java.util.concurrent.CompletableFuture;
 public class PlayerSuggestionProvider implements SuggestionProvider<ServerCommandSource> {
     @Override
     public CompletableFuture<Suggestions> getSuggestions(CommandContext<ServerCommandSource> commandSource, SuggestionsBuilder builder) {
-        var players = commandSource.getSource().getServer().getPlayerManager().getPlayerList();
-        if (players.isEmpty()) {
-            return Suggestions.empty();
-        }
-
-        return CompletableFuture.supplyAsync(() -> {
-            players.forEach(player -> builder.suggest(player.getName().getString()));
-            return builder.build();
-        });
+        return SuggestionSnapshots.players().suggest(builder).buildFuture();
     }
 }
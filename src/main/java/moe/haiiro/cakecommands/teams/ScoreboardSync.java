@@ -0,0 +1,77 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.storage.TeamStore;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Applies every change to a custom team on the scoreboard to the {@link TeamRegistry} and {@link TeamStore} as it
+ * happens, whether it comes from this mod, vanilla {@code /team} or a datapack. ScoreboardMixin calls in here after
+ * teams are added or removed and after members join or leave one.
+ * <p>
+ * Only active between {@link TeamPersistence#load} and server stop; the scoreboard read from disk is picked up by load.
+ */
+public class ScoreboardSync {
+    private static MinecraftServer server;
+
+    static void start(MinecraftServer server) {
+        ScoreboardSync.server = server;
+    }
+
+    public static void stop() {
+        server = null;
+    }
+
+    private static boolean isTracked(Scoreboard scoreboard, Team team) {
+        // The client has its own scoreboard in singleplayer
+        return server != null && scoreboard == server.getScoreboard() && TeamRegistry.isCustomTeam(team);
+    }
+
+    public static void teamAdded(Scoreboard scoreboard, Team team) {
+        if (!isTracked(scoreboard, team)) {
+            return;
+        }
+
+        // Teams added by this mod put their record first, anything else is adopted from the scoreboard
+        var record = TeamStore.getTeam(team.getName());
+        if (record == null) {
+            record = TeamPersistence.fromScoreboard(server, team);
+            TeamStore.putTeam(record);
+        }
+        TeamRegistry.registerTeam(team, TeamMeta.of(record));
+    }
+
+    public static void teamRemoved(Scoreboard scoreboard, Team team) {
+        if (!isTracked(scoreboard, team) || TeamRegistry.getMeta(team) == null) {
+            return;
+        }
+
+        TeamRegistry.unregisterTeam(team);
+        TeamStore.removeTeam(team.getName());
+    }
+
+    public static void memberAdded(Scoreboard scoreboard, String member, Team team) {
+        if (!isTracked(scoreboard, team) || TeamRegistry.getMeta(team) == null) {
+            return;
+        }
+
+        TeamRegistry.addMember(member, team);
+        var record = TeamStore.getTeam(team.getName());
+        if (record != null && !record.members().contains(member)) {
+            TeamStore.addMember(team.getName(), member);
+        }
+    }
+
+    public static void memberRemoved(Scoreboard scoreboard, String member, Team team) {
+        if (!isTracked(scoreboard, team) || TeamRegistry.getMeta(team) == null) {
+            return;
+        }
+
+        TeamRegistry.removeMember(member, team);
+        var record = TeamStore.getTeam(team.getName());
+        if (record != null && record.members().contains(member)) {
+            TeamStore.removeMember(team.getName(), member);
+        }
+    }
+}
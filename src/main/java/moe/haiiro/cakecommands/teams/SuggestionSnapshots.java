@@ -0,0 +1,84 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.util.PrefixIndex;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+
+/**
+ * Immutable name indexes used by the suggestion providers.
+ * They are rebuilt on the server thread at the end of a tick in which something changed, and only read from
+ * suggestion requests, so suggestions never touch live server state.
+ */
+public class SuggestionSnapshots {
+    private static volatile PrefixIndex players = PrefixIndex.EMPTY;
+    private static volatile PrefixIndex teams = PrefixIndex.EMPTY;
+
+    private static boolean playersDirty = false;
+    private static boolean teamsDirty = false;
+
+    public static final TeamRegistry.Listener LISTENER = new TeamRegistry.Listener() {
+        @Override
+        public void teamAdded(Team team) {
+            teamsDirty = true;
+        }
+
+        @Override
+        public void teamRemoved(Team team) {
+            teamsDirty = true;
+        }
+
+        @Override
+        public void metaChanged(Team team, TeamMeta previous) {
+            if (!previous.name().equals(TeamRegistry.getShortName(team))) {
+                teamsDirty = true;
+            }
+        }
+
+        @Override
+        public void cleared() {
+            teamsDirty = true;
+        }
+    };
+
+    public static PrefixIndex players() {
+        return players;
+    }
+
+    public static PrefixIndex teams() {
+        return teams;
+    }
+
+    public static void markPlayersDirty() {
+        playersDirty = true;
+    }
+
+    public static void tick(MinecraftServer server) {
+        if (playersDirty) {
+            playersDirty = false;
+            var names = new ArrayList<String>();
+            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                names.add(player.getName().getString());
+            }
+            players = PrefixIndex.of(names);
+        }
+
+        if (teamsDirty) {
+            teamsDirty = false;
+            var names = new ArrayList<String>(TeamRegistry.size());
+            for (Team team : TeamRegistry.getTeams()) {
+                names.add(TeamRegistry.getShortName(team));
+            }
+            teams = PrefixIndex.of(names);
+        }
+    }
+
+    public static void clear() {
+        players = PrefixIndex.EMPTY;
+        teams = PrefixIndex.EMPTY;
+        playersDirty = false;
+        teamsDirty = false;
+    }
+}
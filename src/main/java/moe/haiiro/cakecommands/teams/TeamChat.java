@@ -0,0 +1,171 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import moe.haiiro.cakecommands.util.RateLimiter;
+import net.minecraft.network.message.ChatVisibility;
+import net.minecraft.network.packet.s2c.play.GameMessageS2CPacket;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers team chat to the online members of a team.
+ * The recipients of every team are tracked from join/leave events and registry changes, so sending a message
+ * never has to look players up by name.
+ * <p>
+ * Players can switch their normal chat to their team with /cteam chat toggle, which hands their messages to
+ * {@link #handleChat} before the server broadcasts them. The toggle lasts until they log out.
+ */
+public class TeamChat {
+    private static final Map<String, ServerPlayNetworkHandler> onlinePlayers = new HashMap<>();
+    private static final Map<Team, Set<ServerPlayNetworkHandler>> recipients = new HashMap<>();
+    private static final Set<UUID> channelPlayers = new HashSet<>();
+
+    private static final AtomicLong messagesSent = new AtomicLong();
+    private static final AtomicLong messagesDelivered = new AtomicLong();
+    private static final AtomicLong deliveryNanos = new AtomicLong();
+
+    public record Stats(long messagesSent, long messagesDelivered, long deliveryNanos) {
+        public double averageDeliveryMicros() {
+            return messagesSent == 0 ? 0 : deliveryNanos / 1000.0 / messagesSent;
+        }
+    }
+
+    public static final TeamRegistry.Listener LISTENER = new TeamRegistry.Listener() {
+        @Override
+        public void teamRemoved(Team team) {
+            recipients.remove(team);
+        }
+
+        @Override
+        public void memberAdded(String member, Team team) {
+            var handler = onlinePlayers.get(member);
+            if (handler != null) {
+                recipients.computeIfAbsent(team, t -> new LinkedHashSet<>()).add(handler);
+            }
+        }
+
+        @Override
+        public void memberRemoved(String member, Team team) {
+            var handler = onlinePlayers.get(member);
+            var members = recipients.get(team);
+            if (handler != null && members != null) {
+                members.remove(handler);
+            }
+        }
+
+        @Override
+        public void cleared() {
+            recipients.clear();
+        }
+    };
+
+    public static void playerJoined(ServerPlayNetworkHandler handler) {
+        var name = handler.getPlayer().getName().getString();
+        onlinePlayers.put(name, handler);
+
+        var team = TeamRegistry.getByMember(name);
+        if (team != null) {
+            LISTENER.memberAdded(name, team);
+        }
+    }
+
+    public static void playerLeft(ServerPlayNetworkHandler handler) {
+        var name = handler.getPlayer().getName().getString();
+        var team = TeamRegistry.getByMember(name);
+        if (team != null) {
+            LISTENER.memberRemoved(name, team);
+        }
+        onlinePlayers.remove(name, handler);
+        channelPlayers.remove(handler.getPlayer().getUuid());
+    }
+
+    public static boolean isChannelEnabled(ServerPlayerEntity player) {
+        return channelPlayers.contains(player.getUuid());
+    }
+
+    public static void setChannelEnabled(ServerPlayerEntity player, boolean enabled) {
+        if (enabled) {
+            channelPlayers.add(player.getUuid());
+        } else {
+            channelPlayers.remove(player.getUuid());
+        }
+    }
+
+    /**
+     * Sends a chat message to the player's team if they switched their chat to it. Runs on the server thread,
+     * after the message has been validated but before it's broadcast.
+     *
+     * @return true if the message was handled here and must not be broadcast
+     */
+    public static boolean handleChat(ServerPlayerEntity player, String message) {
+        if (channelPlayers.isEmpty() || !channelPlayers.contains(player.getUuid())) {
+            return false;
+        }
+
+        var team = TeamRegistry.getByMember(player.getName().getString());
+        if (team == null) {
+            // Still swallow the message, it was meant for the team and not for everyone
+            channelPlayers.remove(player.getUuid());
+            player.sendMessage(MessageFormatter.constantMessage("You are not in a team anymore, team chat is off!", MessageFormatter.ERROR_COLOR));
+            return true;
+        }
+
+        if (RateLimiter.tryAcquire("chat", player)) {
+            TeamManager.sendTeamMessage(player, team, message);
+        }
+        return true;
+    }
+
+    /**
+     * Sends the message to every online member of the team whose chat settings allow it, like vanilla does.
+     * The packet is built once and shared.
+     *
+     * @param playerChat true for messages written by a player, false for notices from the mod
+     * @return the number of players the message was delivered to
+     */
+    public static int send(Team team, Text message, boolean playerChat) {
+        long start = System.nanoTime();
+        var members = recipients.get(team);
+        if (members == null || members.isEmpty()) {
+            return 0;
+        }
+
+        var packet = new GameMessageS2CPacket(message, false);
+        int delivered = 0;
+        for (ServerPlayNetworkHandler handler : members) {
+            var visibility = handler.getPlayer().getClientChatVisibility();
+            if (visibility == ChatVisibility.FULL || (!playerChat && visibility == ChatVisibility.SYSTEM)) {
+                handler.sendPacket(packet);
+                delivered++;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        messagesSent.incrementAndGet();
+        messagesDelivered.addAndGet(delivered);
+        deliveryNanos.addAndGet(elapsed);
+        CakeCommands.LOGGER.debug("Delivered team message to {} members of {} in {}us", delivered, team.getName(), elapsed / 1000);
+        return delivered;
+    }
+
+    public static Stats getStats() {
+        return new Stats(messagesSent.get(), messagesDelivered.get(), deliveryNanos.get());
+    }
+
+    public static void clear() {
+        onlinePlayers.clear();
+        recipients.clear();
+        channelPlayers.clear();
+    }
+}
@@ -0,0 +1,90 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.text.HoverEvent;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders /cteam info cards, cached per team version.
+ */
+public class TeamInfoRenderer {
+    private static final Map<Team, CachedText> cards = new HashMap<>();
+
+    public static final TeamRegistry.Listener LISTENER = new TeamRegistry.Listener() {
+        @Override
+        public void teamRemoved(Team team) {
+            cards.remove(team);
+        }
+
+        @Override
+        public void cleared() {
+            cards.clear();
+        }
+    };
+
+    public static final ConfigManager.Listener CONFIG_LISTENER = (previous, current) -> {
+        if (previous.maxMembers() != current.maxMembers()) {
+            cards.clear();
+        }
+    };
+
+    public static Text render(Team team) {
+        long version = TeamRegistry.getVersion(team);
+        var cached = cards.get(team);
+        if (cached == null || cached.version() != version) {
+            cached = new CachedText(version, renderCard(team));
+            cards.put(team, cached);
+        }
+        return cached.text();
+    }
+
+    private static Text renderCard(Team team) {
+        var members = team.getPlayerList();
+        var memberList = "\n" + String.join("\n", members);
+
+        var hoverEvent = new HoverEvent(
+                HoverEvent.Action.SHOW_TEXT,
+                Text.literal("This team has " + members.size() + " out of " + ConfigManager.get().maxMembers() + " members:\n")
+                        .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
+                        .append(
+                                Text.literal(memberList)
+                                        .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
+                        )
+        );
+
+        return Text.literal("Team Info:\n")
+                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
+                .append(
+                        Text.literal("Name: ")
+                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
+                )
+                .append(
+                        Text.literal(team.getDisplayName().getString())
+                                .setStyle(team.getPrefix().getStyle()
+                                        .withHoverEvent(hoverEvent)
+                                )
+                )
+                .append(
+                        Text.literal("\nOwner: ")
+                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
+                )
+                .append(
+                        Text.literal(TeamRegistry.getOwnerName(team))
+                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
+                )
+                .append(
+                        Text.literal("\nMembers: ")
+                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
+                )
+                .append(
+                        Text.literal(memberList)
+                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
+                );
+    }
+}
@@ -1,11 +1,11 @@
 package moe.haiiro.cakecommands.teams;
 
+import moe.haiiro.cakecommands.config.ConfigManager;
 import net.minecraft.scoreboard.Team;
 
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 
-public record TeamInvite(Team team, String playerName, LocalDateTime inviteTime, boolean accepted) {
+public record TeamInvite(long id, Team team, String playerName, LocalDateTime inviteTime) {
     public TeamInvite {
         if (team == null) {
             throw new IllegalArgumentException("Team cannot be null or empty!");
@@ -21,6 +21,10 @@ public record TeamInvite(Team team, String playerName, LocalDateTime inviteTime,
     }
 
     public long getInviteId() {
-        return inviteTime.toEpochSecond(ZoneOffset.UTC);
+        return id;
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return inviteTime.plus(ConfigManager.get().inviteExpiry()).isBefore(now);
     }
 }
@@ -0,0 +1,131 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.text.ClickEvent;
+import net.minecraft.text.HoverEvent;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders /cteam list pages. Every team's line is cached together with the team version it was rendered for,
+ * so a page only costs as much as the teams on it.
+ */
+public class TeamListRenderer {
+    private static final Map<Team, CachedText> lines = new HashMap<>();
+
+    public static final TeamRegistry.Listener LISTENER = new TeamRegistry.Listener() {
+        @Override
+        public void teamRemoved(Team team) {
+            lines.remove(team);
+        }
+
+        @Override
+        public void cleared() {
+            lines.clear();
+        }
+    };
+
+    public static final ConfigManager.Listener CONFIG_LISTENER = (previous, current) -> {
+        if (previous.maxMembers() != current.maxMembers()) {
+            lines.clear();
+        }
+    };
+
+    public static int getPageCount() {
+        return getPageCount(ConfigManager.get().listPageSize());
+    }
+
+    private static int getPageCount(int pageSize) {
+        return Math.max(1, (TeamRegistry.size() + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * @param page the 1-based page number, must be between 1 and {@link #getPageCount()}
+     */
+    public static Text renderPage(int page) {
+        var teams = TeamRegistry.getTeams();
+        int pageSize = ConfigManager.get().listPageSize();
+        int pages = getPageCount(pageSize);
+        int from = (page - 1) * pageSize;
+        int to = Math.min(from + pageSize, teams.size());
+
+        MutableText teamList = Text.literal("Teams (" + page + "/" + pages + "):\n")
+                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
+        for (int i = from; i < to; i++) {
+            teamList.append(getLine(teams.get(i)));
+        }
+
+        if (pages > 1) {
+            teamList.append(Text.literal("\n"));
+            if (page > 1) {
+                teamList.append(pageButton("[< Prev] ", page - 1));
+            }
+            if (page < pages) {
+                teamList.append(pageButton("[Next >]", page + 1));
+            }
+        }
+        return teamList;
+    }
+
+    private static Text getLine(Team team) {
+        long version = TeamRegistry.getVersion(team);
+        var cached = lines.get(team);
+        if (cached == null || cached.version() != version) {
+            cached = new CachedText(version, renderLine(team));
+            lines.put(team, cached);
+        }
+        return cached.text();
+    }
+
+    private static Text pageButton(String label, int page) {
+        return Text.literal(label)
+                .setStyle(Style.EMPTY
+                        .withColor(MessageFormatter.WARNING_COLOR)
+                        .withHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, Text.literal("Go to page " + page)))
+                        .withClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, "/cteam list " + page)));
+    }
+
+    private static Text renderLine(Team t) {
+        HoverEvent hoverEvent = new HoverEvent(
+                HoverEvent.Action.SHOW_TEXT,
+                Text.literal("This team has " + t.getPlayerList().size() + " out of " + ConfigManager.get().maxMembers() + " members:\n")
+                        .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
+                        .append(
+                                Text.literal(String.join("\n", t.getPlayerList()))
+                                        .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
+                        )
+        );
+
+        return Text.literal("\n" + t.getPrefix().getString())
+                .setStyle(t.getPrefix().getStyle()
+                        .withHoverEvent(hoverEvent)
+                )
+                .append(
+                        Text.literal(" (Owner: ")
+                                .setStyle(Style.EMPTY
+                                        .withColor(MessageFormatter.INFO_COLOR)
+                                        .withHoverEvent(hoverEvent)
+                                )
+                )
+                .append(
+                        Text.literal(TeamRegistry.getOwnerName(t))
+                                .setStyle(Style.EMPTY
+                                        .withColor(MessageFormatter.WARNING_COLOR)
+                                        .withHoverEvent(hoverEvent)
+                                )
+                )
+                .append(
+                        Text.literal(")")
+                                .setStyle(Style.EMPTY
+                                        .withColor(MessageFormatter.INFO_COLOR)
+                                        .withHoverEvent(hoverEvent)
+                                )
+                );
+    }
+}
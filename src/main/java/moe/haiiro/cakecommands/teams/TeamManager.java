@@ -1,30 +1,30 @@
 package moe.haiiro.cakecommands.teams;
 
 import com.mojang.brigadier.context.CommandContext;
-import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.events.TeamEvent;
+import moe.haiiro.cakecommands.events.TeamEventBus;
+import moe.haiiro.cakecommands.storage.MailRecord;
+import moe.haiiro.cakecommands.storage.TeamRecord;
+import moe.haiiro.cakecommands.storage.TeamStore;
+import moe.haiiro.cakecommands.util.ColorRegistry;
 import moe.haiiro.cakecommands.util.MessageFormatter;
 import net.minecraft.scoreboard.ServerScoreboard;
 import net.minecraft.scoreboard.Team;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.*;
-import net.minecraft.util.Formatting;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.UUID;
 
 import static moe.haiiro.cakecommands.util.CommandUtils.sendFeedback;
-import static moe.haiiro.cakecommands.util.CommandUtils.broadcastMessage;
 import static moe.haiiro.cakecommands.util.CommandUtils.sendToPlayer;
-import static net.minecraft.scoreboard.AbstractTeam.CollisionRule;
-import static net.minecraft.scoreboard.AbstractTeam.VisibilityRule;
 import static moe.haiiro.cakecommands.util.MessageFormatter.prefixMessage;
 
 public class TeamManager {
-    private static ArrayList<TeamInvite> teamInvites = new ArrayList<>();
-
     private static TeamState getTeam(CommandContext<ServerCommandSource> ctx) {
         String name = ctx.getArgument("name", String.class);
         String color = ctx.getArgument("color", String.class);
@@ -33,7 +33,6 @@ public class TeamManager {
             owner = Text.literal("Server");
         }
 
-        System.out.println("Getting team with name " + name + " and color " + color + " for " + owner.getString());
         return new TeamState(name, color, owner.getString());
     }
 
@@ -41,42 +40,16 @@ public class TeamManager {
         return ctx.getSource().getServer().getScoreboard();
     }
 
-    private static boolean isTeamOwner(CommandContext<ServerCommandSource> ctx) {
-        ServerScoreboard scoreboard = getScoreboard(ctx);
-        var player = ctx.getSource().getPlayer().getName();
+    private static Team getOwnedTeam(CommandContext<ServerCommandSource> ctx) {
+        var player = ctx.getSource().getPlayer();
         if (player == null) {
-            return false;
-        }
-        Team ownerTeam = scoreboard.getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam") && t.getName().endsWith(player.getString()))
-                .findFirst()
-                .orElse(null);
-
-        return ownerTeam != null;
-    }
-
-    private static boolean isValidColor(String color) {
-        var colors = new String[]{
-                "black",
-                "dark_blue",
-                "dark_green",
-                "dark_aqua",
-                "dark_red",
-                "dark_purple",
-                "gold",
-                "gray",
-                "dark_gray",
-                "blue",
-                "green",
-                "aqua",
-                "red",
-                "light_purple",
-                "yellow",
-                "white"
-        };
-
-        return color.matches("^#([A-Fa-f0-9]{6}|[A-Fa-f0-9]{3})$") || List.of(colors).contains(color);
+            return null;
+        }
+        return TeamRegistry.getByOwner(player.getUuid());
+    }
+
+    private static boolean isTeamOwner(CommandContext<ServerCommandSource> ctx) {
+        return getOwnedTeam(ctx) != null;
     }
 
     private static ServerPlayerEntity getPlayer(CommandContext<ServerCommandSource> ctx) {
@@ -87,6 +60,15 @@ public class TeamManager {
         return ctx.getSource().getPlayer() != null;
     }
 
+    // The registry and store follow the scoreboard through ScoreboardSync
+    private static void addToTeam(ServerScoreboard scoreboard, String member, Team team) {
+        scoreboard.addScoreHolderToTeam(member, team);
+    }
+
+    private static void removeFromTeam(ServerScoreboard scoreboard, String member, Team team) {
+        scoreboard.removeScoreHolderFromTeam(member, team);
+    }
+
     public static int createTeam(CommandContext<ServerCommandSource> ctx) {
         var player = getPlayer(ctx);
         if (player == null) {
@@ -95,19 +77,12 @@ public class TeamManager {
         }
 
         TeamState team = getTeam(ctx);
-        CakeCommands.LOGGER.info("Creating team with name {} and color {}", team.name(), team.color());
 
         String teamName = team.getTeamId();
 
-        var prefix = Text.literal(team.getFormattedName());
-        prefix.setStyle(Style.EMPTY.withColor(team.getMinecraftColor()));
-
-        var displayName = Text.literal(team.getFormattedName().trim());
-        displayName.setStyle(Style.EMPTY.withColor(team.getMinecraftColor()));
-
         ServerScoreboard scoreboard = getScoreboard(ctx);
 
-        if (scoreboard.getTeam(teamName) != null) {
+        if (scoreboard.getTeam(teamName) != null || TeamRegistry.getByName(team.name()) != null) {
             sendFeedback(ctx, "Team already exists!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
@@ -117,21 +92,30 @@ public class TeamManager {
             return 0;
         }
 
-        Team t = scoreboard.addTeam(teamName);
-        t.setPrefix(prefix);
-        t.setDisplayName(displayName);
-        t.setCollisionRule(CollisionRule.NEVER);
-        t.setFriendlyFireAllowed(false);
-        t.setShowFriendlyInvisibles(true);
-        t.setDeathMessageVisibilityRule(VisibilityRule.ALWAYS);
-        t.setNameTagVisibilityRule(VisibilityRule.HIDE_FOR_OTHER_TEAMS);
-
-        scoreboard.addScoreHolderToTeam(player.getName().getString(), t);
+        Team t = addTeam(scoreboard, team, player.getUuid(), List.of(player.getName().getString()));
         sendFeedback(ctx, "Team created successfully!", MessageFormatter.SUCCESS_COLOR);
-        broadcastMessage(ctx, player.getName().getString() + " has created a new team!", MessageFormatter.INFO_COLOR);
+        TeamEventBus.post(new TeamEvent.TeamCreated(t, player.getName().getString()));
         return 1;
     }
 
+    /**
+     * Adds a custom team to the scoreboard and every index. The caller checks that the id, short name and owner are free.
+     */
+    static Team addTeam(ServerScoreboard scoreboard, TeamState team, UUID ownerId, List<String> members) {
+        // Stored first so ScoreboardSync registers the team with this record instead of adopting it
+        var record = new TeamRecord(team.getTeamId(), team.name(), team.color(), team.owner(), ownerId, Instant.now().getEpochSecond(), members);
+        TeamStore.putTeam(record);
+
+        Team t = scoreboard.addTeam(team.getTeamId());
+        TeamProperties.defaults()
+                .name(team.getFormattedName().trim(), Style.EMPTY.withColor(team.getMinecraftColor()))
+                .applyTo(t);
+        for (String member : members) {
+            scoreboard.addScoreHolderToTeam(member, t);
+        }
+        return t;
+    }
+
     public static int deleteTeam(CommandContext<ServerCommandSource> ctx) {
         if (!isPlayer(ctx)) {
             sendFeedback(ctx, "You must be a player to delete a team!", MessageFormatter.ERROR_COLOR);
@@ -140,95 +124,74 @@ public class TeamManager {
 
         Text owner = getPlayer(ctx).getName();
 
-        if (!isTeamOwner(ctx)) {
-            sendFeedback(ctx, "You don't own a team!", MessageFormatter.ERROR_COLOR);
-            return 0;
-        }
-
         ServerScoreboard scoreboard = getScoreboard(ctx);
-        Optional<Team> ownerTeam = scoreboard.getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam") && t.getName().endsWith(owner.getString()))
-                .findFirst();
+        Team ownerTeam = getOwnedTeam(ctx);
 
-        if (ownerTeam.isEmpty()) {
-            sendFeedback(ctx, "Team not found!", MessageFormatter.ERROR_COLOR);
+        if (ownerTeam == null) {
+            sendFeedback(ctx, "You don't own a team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        CakeCommands.LOGGER.info("Deleting team with name {} (Owner: {})", ownerTeam.get().getName(), owner.getString());
-
-        ownerTeam.ifPresent(scoreboard::removeTeam);
+        scoreboard.removeTeam(ownerTeam);
+        TeamEventBus.post(new TeamEvent.TeamDeleted(ownerTeam, owner.getString()));
         sendFeedback(ctx, "Team deleted successfully!", MessageFormatter.SUCCESS_COLOR);
         return 1;
     }
 
     public static int editTeamName(CommandContext<ServerCommandSource> ctx) {
-        if (!isTeamOwner(ctx)) {
+        var ownerTeam = getOwnedTeam(ctx);
+        if (ownerTeam == null) {
             sendFeedback(ctx, "You don't own a team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
         var name = ctx.getArgument("name", String.class);
-        if (name.length() > 4) {
-            sendFeedback(ctx, "Team name must be 4 characters or less!", MessageFormatter.ERROR_COLOR);
+        int maxNameLength = ConfigManager.get().maxNameLength();
+        if (name.length() > maxNameLength) {
+            sendFeedback(ctx, "Team name must be {} characters or less!", MessageFormatter.ERROR_COLOR, maxNameLength);
             return 0;
         }
 
-        var scoreboard = getScoreboard(ctx);
-        var ownerTeam = scoreboard.getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam") && t.getName().endsWith(getPlayer(ctx).getName().getString()))
-                .findFirst();
-        assert ownerTeam.isPresent();
-
-        CakeCommands.LOGGER.info("Editing team name from {} to {} (Owner: {})", ownerTeam.get().getName(), name, getPlayer(ctx).getName().getString());
+        var existing = TeamRegistry.getByName(name);
+        if (existing != null && existing != ownerTeam) {
+            sendFeedback(ctx, "Team already exists!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
 
-        var color = ownerTeam.get().getPrefix().getStyle();
-        ownerTeam.get().setPrefix(Text.literal(name + " ").setStyle(color));
+        var meta = TeamRegistry.getMeta(ownerTeam);
+        var oldName = meta.name();
+        if (!TeamRegistry.updateMeta(ownerTeam, meta.withName(name))) {
+            sendFeedback(ctx, "Team already exists!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+        TeamProperties.create().name(name, ownerTeam.getPrefix().getStyle()).applyTo(ownerTeam);
+        TeamStore.updateTeam(ownerTeam.getName(), r -> r.withName(name));
+        TeamEventBus.post(new TeamEvent.TeamRenamed(ownerTeam, oldName, name, getPlayer(ctx).getName().getString()));
 
         sendFeedback(ctx, "Team name changed successfully!", MessageFormatter.SUCCESS_COLOR);
         return 1;
     }
 
     public static int editTeamColor(CommandContext<ServerCommandSource> ctx) {
-        if (!isTeamOwner(ctx)) {
+        var ownerTeam = getOwnedTeam(ctx);
+        if (ownerTeam == null) {
             sendFeedback(ctx, "You don't own a team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
         var color = ctx.getArgument("color", String.class);
-        if (!isValidColor(color)) {
+        if (!ColorRegistry.isValid(color)) {
             sendFeedback(ctx, "Invalid color! Must be a valid minecraft color or hex color.", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        var scoreboard = getScoreboard(ctx);
-        var ownerTeam = scoreboard.getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam") && t.getName().endsWith(getPlayer(ctx).getName().getString()))
-                .findFirst();
+        var meta = TeamRegistry.getMeta(ownerTeam);
 
-        ownerTeam.ifPresent(t -> {
-            var name = t.getPrefix().getString();
-
-            TextColor c = null;
-            if (color.matches("^#([A-Fa-f0-9]{6}|[A-Fa-f0-9]{3})$")) {
-                c = TextColor.fromRgb(Integer.parseInt(color.substring(1), 16));
-            }
-
-            for (Formatting formatting : Formatting.values()) {
-                if (formatting.getName().toLowerCase().equals(color)) {
-                    c = TextColor.fromFormatting(formatting);
-                }
-            }
-
-            if (c == null) {
-                c = TextColor.fromFormatting(Formatting.WHITE);
-            }
-
-            t.setPrefix(Text.literal(name).setStyle(Style.EMPTY.withColor(c)));
-        });
+        TextColor c = ColorRegistry.resolve(color);
+        TeamProperties.create().name(meta.name(), Style.EMPTY.withColor(c)).applyTo(ownerTeam);
+        TeamRegistry.updateMeta(ownerTeam, meta.withColor(color));
+        TeamStore.updateTeam(ownerTeam.getName(), r -> r.withColor(color));
+        TeamEventBus.post(new TeamEvent.TeamRecolored(ownerTeam, meta.color(), color, ctx.getSource().getName()));
 
         sendFeedback(ctx, "Team color changed successfully!", MessageFormatter.SUCCESS_COLOR);
         return 1;
@@ -247,45 +210,57 @@ public class TeamManager {
             return 0;
         }
 
-        ServerPlayerEntity targetPlayer;
-        try {
-            targetPlayer = ctx.getSource().getServer().getPlayerManager().getPlayer(target);
-        } catch (Exception e) {
-            sendFeedback(ctx, "Target player not found!", MessageFormatter.ERROR_COLOR);
-            return 0;
-        }
-
-        if (targetPlayer == null) {
+        var server = ctx.getSource().getServer();
+        var targetPlayer = server.getPlayerManager().getPlayer(target);
+        var targetName = targetPlayer != null ? targetPlayer.getName().getString() : Mailbox.findKnownPlayer(server, target);
+        if (targetName == null) {
             sendFeedback(ctx, "Target player not found!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
         var owner = player.getName();
-        if (!isTeamOwner(ctx)) {
+        var team = getOwnedTeam(ctx);
+        if (team == null) {
             sendFeedback(ctx, "You don't own a team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        var team = getScoreboard(ctx).getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam") && t.getName().endsWith(owner.getString()))
-                .findFirst()
-                .orElse(null);
-
-        if (team == null) {
-            sendFeedback(ctx, "Team not found!", MessageFormatter.ERROR_COLOR);
+        if (team.getPlayerList().contains(targetName)) {
+            sendFeedback(ctx, "Player is already in the team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        if (team.getPlayerList().contains(targetPlayer.getName().getString())) {
-            sendFeedback(ctx, "Player is already in the team!", MessageFormatter.ERROR_COLOR);
-            return 0;
+        if (targetPlayer == null) {
+            if (TeamStore.mailInviteCount(team.getName()) >= ConfigManager.get().maxMailInvitesPerTeam()) {
+                sendFeedback(ctx, "Your team has too many invites waiting for offline players!", MessageFormatter.ERROR_COLOR);
+                return 0;
+            }
+            if (!Mailbox.post(server, targetName, MailRecord.INVITE, team.getName(), owner.getString())) {
+                sendFeedback(ctx, "Could not send the invite, try again later!", MessageFormatter.ERROR_COLOR);
+                return 0;
+            }
+            sendFeedback(ctx, "Player is offline, they will get the invite when they join!", MessageFormatter.SUCCESS_COLOR);
+            return 1;
         }
 
-        TeamInvite inv = new TeamInvite(team, targetPlayer.getName().getString(), LocalDateTime.now(), false);
-        teamInvites.add(inv);
+        TeamInvite inv = createInvite(team, targetName, owner.getString());
+        sendToPlayer(ctx, targetPlayer, inviteText(owner.getString(), inv));
 
-        Text inviteText = Text.literal(owner.getString() + " has invited you to join their team!\n")
+        sendFeedback(ctx, "Player invited to team!", MessageFormatter.SUCCESS_COLOR);
+        return 1;
+    }
+
+    /**
+     * Creates an invite and announces it, for invites sent right away as well as ones delivered from the {@link Mailbox}.
+     */
+    static TeamInvite createInvite(Team team, String playerName, String invitedBy) {
+        var invite = InviteStore.create(team, playerName);
+        TeamEventBus.post(new TeamEvent.InviteSent(team, invite, invitedBy));
+        return invite;
+    }
+
+    static MutableText inviteText(String owner, TeamInvite inv) {
+        return Text.literal(owner + " has invited you to join their team!\n")
                 .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
                 .append(
                         Text.literal("[Accept]")
@@ -301,16 +276,13 @@ public class TeamManager {
                                                         .withClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, "/cteam decline " + inv.getInviteId())))
                                 )
                 );
-        sendToPlayer(ctx, targetPlayer, inviteText);
-
-        ctx.getSource().getServer().getWorld(targetPlayer.getEntityWorld().getRegistryKey())
-                .playSound(null, targetPlayer.getBlockPos(), net.minecraft.sound.SoundEvents.ENTITY_EXPERIENCE_ORB_PICKUP, net.minecraft.sound.SoundCategory.PLAYERS, 1.0f, 1.0f);
-
-        sendFeedback(ctx, "Player invited to team!", MessageFormatter.SUCCESS_COLOR);
-        return 1;
     }
 
     public static int kickFromTeam(CommandContext<ServerCommandSource> ctx) {
+        return DeferredCommands.run(ctx, "kick", DeferredCommands::planKick, TeamManager::kickFromTeamNow);
+    }
+
+    static int kickFromTeamNow(CommandContext<ServerCommandSource> ctx) {
         var player = getPlayer(ctx);
         if (player == null) {
             sendFeedback(ctx, "You must be a player to kick someone from a team!", MessageFormatter.ERROR_COLOR);
@@ -323,119 +295,62 @@ public class TeamManager {
             return 0;
         }
 
-        ServerPlayerEntity targetPlayer;
-        try {
-            targetPlayer = ctx.getSource().getServer().getPlayerManager().getPlayer(target);
-        } catch (Exception e) {
-            sendFeedback(ctx, "Target player not found!", MessageFormatter.ERROR_COLOR);
-            return 0;
-        }
-
-        if (targetPlayer == null) {
-            sendFeedback(ctx, "Target player not found!", MessageFormatter.ERROR_COLOR);
-            return 0;
-        }
+        // Offline members can be kicked too, they find out from their mailbox
+        var targetPlayer = ctx.getSource().getServer().getPlayerManager().getPlayer(target);
+        var targetName = targetPlayer != null ? targetPlayer.getName().getString() : target;
 
         var owner = player.getName();
-        if (!isTeamOwner(ctx)) {
-            sendFeedback(ctx, "You don't own a team!", MessageFormatter.ERROR_COLOR);
-            return 0;
-        }
-
-        var team = getScoreboard(ctx).getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam") && t.getName().endsWith(owner.getString()))
-                .findFirst()
-                .orElse(null);
-
+        var team = getOwnedTeam(ctx);
         if (team == null) {
-            sendFeedback(ctx, "Team not found!", MessageFormatter.ERROR_COLOR);
+            sendFeedback(ctx, "You don't own a team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        if (!team.getPlayerList().contains(targetPlayer.getName().getString())) {
+        if (!team.getPlayerList().contains(targetName)) {
             sendFeedback(ctx, "Player is not in the team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        getScoreboard(ctx).removeScoreHolderFromTeam(targetPlayer.getName().getString(), team);
-        sendFeedback(ctx, "Player kicked from team!", MessageFormatter.SUCCESS_COLOR);
-
-        Text kickText = Text.literal("You have been kicked from ")
-                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                .append(
-                        Text.literal(team.getDisplayName().getString())
-                                .setStyle(team.getPrefix().getStyle())
-                ).append(
-                        Text.literal("!")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                );
-        sendToPlayer(ctx, targetPlayer, kickText);
+        return completeKick(ctx, owner.getString(), targetName, team);
+    }
 
+    static int completeKick(CommandContext<ServerCommandSource> ctx, String owner, String target, Team team) {
+        removeFromTeam(getScoreboard(ctx), target, team);
+        sendFeedback(ctx, "Player kicked from team!", MessageFormatter.SUCCESS_COLOR);
+        TeamEventBus.post(new TeamEvent.MemberKicked(team, target, owner));
         return 1;
     }
 
     public static int listTeams(CommandContext<ServerCommandSource> ctx) {
-        var scoreboard = getScoreboard(ctx);
-
-        var teams = scoreboard.getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam"))
-                .toList();
+        var teams = TeamRegistry.getTeams();
 
         if (teams.isEmpty()) {
             sendFeedback(ctx, "There are no teams created yet!", MessageFormatter.WARNING_COLOR);
             return 0;
-        } else {
-            Text teamList = Text.literal("Teams:\n")
-                    .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
+        }
 
-            for (Team t : teams) {
-                HoverEvent hoverEvent = new HoverEvent(
-                        HoverEvent.Action.SHOW_TEXT,
-                        Text.literal("This team has % out of 3 members:\n".replace("%", String.valueOf(t.getPlayerList().size())))
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                .append(
-                                        Text.literal(t.getPlayerList().stream().reduce("", (a, b) -> "\n" + a + b))
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                )
-                );
-                teamList = teamList.copy().append(
-                                Text.literal("\n" + t.getPrefix().getString())
-                                        .setStyle(t.getPrefix().getStyle()
-                                                .withHoverEvent(hoverEvent)
-                                        )
-                        )
-                        .append(
-                                Text.literal(" (Owner: ")
-                                        .setStyle(Style.EMPTY
-                                                .withColor(MessageFormatter.INFO_COLOR)
-                                                .withHoverEvent(hoverEvent)
-                                        )
-                        )
-                        .append(
-                                Text.literal(t.getName().split("_")[t.getName().split("_").length - 1])
-                                        .setStyle(Style.EMPTY
-                                                .withColor(MessageFormatter.WARNING_COLOR)
-                                                .withHoverEvent(hoverEvent)
-                                        )
-                        )
-                        .append(
-                                Text.literal(")")
-                                        .setStyle(Style.EMPTY
-                                                .withColor(MessageFormatter.INFO_COLOR)
-                                                .withHoverEvent(hoverEvent)
-                                        )
-                        );
-            }
+        int page;
+        try {
+            page = ctx.getArgument("page", Integer.class);
+        } catch (IllegalArgumentException e) {
+            page = 1;
+        }
 
-            sendFeedback(ctx, teamList);
+        if (page > TeamListRenderer.getPageCount()) {
+            sendFeedback(ctx, "There are only {} pages!", MessageFormatter.ERROR_COLOR, TeamListRenderer.getPageCount());
+            return 0;
         }
 
+        sendFeedback(ctx, TeamListRenderer.renderPage(page));
+
         return 1;
     }
 
     public static int acceptInvite(CommandContext<ServerCommandSource> ctx) {
+        return DeferredCommands.run(ctx, "accept", DeferredCommands::planAccept, TeamManager::acceptInviteNow);
+    }
+
+    static int acceptInviteNow(CommandContext<ServerCommandSource> ctx) {
         var player = getPlayer(ctx);
         if (player == null) {
             sendFeedback(ctx, "You must be a player to accept an invite!", MessageFormatter.ERROR_COLOR);
@@ -443,41 +358,47 @@ public class TeamManager {
         }
 
         long inviteId = ctx.getArgument("invite_id", Long.class);
-        var invite = teamInvites.stream()
-                .filter(i -> i.getInviteId() == inviteId)
-                .findFirst()
-                .orElse(null);
+        var invite = InviteStore.get(inviteId);
 
-        if (invite == null) {
+        if (invite == null || !invite.playerName().equals(player.getName().getString())) {
             sendFeedback(ctx, "Invite not found!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        if (invite.accepted()) {
-            sendFeedback(ctx, "Invite already accepted!", MessageFormatter.ERROR_COLOR);
-            return 0;
-        }
-
-        if (invite.inviteTime().isBefore(LocalDateTime.now().minusMinutes(15))) {
+        if (invite.isExpired(LocalDateTime.now())) {
             sendFeedback(ctx, "Invite has expired!", MessageFormatter.ERROR_COLOR);
-            teamInvites.remove(invite);
+            InviteStore.remove(inviteId);
             return 0;
         }
 
         var team = invite.team();
         var target = player.getName();
 
+        if (getScoreboard(ctx).getTeam(team.getName()) != team) {
+            sendFeedback(ctx, "Team not found!", MessageFormatter.ERROR_COLOR);
+            InviteStore.remove(inviteId);
+            return 0;
+        }
+
         if (team.getPlayerList().contains(target.getString())) {
             sendFeedback(ctx, "Player is already in the team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        // Replace the invite with an accepted one
-        teamInvites.remove(invite);
-        teamInvites.add(new TeamInvite(invite.team(), invite.playerName(), invite.inviteTime(), true));
+        if (team.getPlayerList().size() >= ConfigManager.get().maxMembers()) {
+            sendFeedback(ctx, "Team is full!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+
+        return completeAccept(ctx, player, invite);
+    }
+
+    static int completeAccept(CommandContext<ServerCommandSource> ctx, ServerPlayerEntity player, TeamInvite invite) {
+        var team = invite.team();
+        var target = player.getName();
 
-        var scoreboard = getScoreboard(ctx);
-        scoreboard.addScoreHolderToTeam(target.getString(), team);
+        InviteStore.remove(invite.id());
+        addToTeam(getScoreboard(ctx), target.getString(), team);
 
         Text acceptText = Text.literal("You have accepted the invite to join ")
                 .setStyle(Style.EMPTY.withColor(MessageFormatter.SUCCESS_COLOR))
@@ -489,15 +410,7 @@ public class TeamManager {
                                 .setStyle(Style.EMPTY.withColor(MessageFormatter.SUCCESS_COLOR))
                 );
         sendToPlayer(ctx, player, acceptText);
-
-        for (String p : team.getPlayerList()) {
-            ServerPlayerEntity playerEntity = ctx.getSource().getServer().getPlayerManager().getPlayer(p);
-            if (playerEntity != null) {
-                Text joinText = Text.literal(target.getString() + " has joined the team!")
-                        .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
-                sendToPlayer(ctx, playerEntity, joinText);
-            }
-        }
+        TeamEventBus.post(new TeamEvent.MemberJoined(team, target.getString()));
 
         return 1;
     }
@@ -510,30 +423,22 @@ public class TeamManager {
         }
 
         long inviteId = ctx.getArgument("invite_id", Long.class);
-        var invite = teamInvites.stream()
-                .filter(i -> i.getInviteId() == inviteId)
-                .findFirst()
-                .orElse(null);
+        var invite = InviteStore.get(inviteId);
 
-        if (invite == null) {
+        if (invite == null || !invite.playerName().equals(player.getName().getString())) {
             sendFeedback(ctx, "Invite not found!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        if (invite.accepted()) {
-            sendFeedback(ctx, "Invite already accepted!", MessageFormatter.ERROR_COLOR);
-            return 0;
-        }
-
-        if (invite.inviteTime().isBefore(LocalDateTime.now().minusMinutes(15))) {
+        if (invite.isExpired(LocalDateTime.now())) {
             sendFeedback(ctx, "Invite has expired!", MessageFormatter.ERROR_COLOR);
-            teamInvites.remove(invite);
+            InviteStore.remove(inviteId);
             return 0;
         }
 
         var team = invite.team();
 
-        teamInvites.remove(invite);
+        InviteStore.remove(inviteId);
 
         Text declineText = Text.literal("You have declined the invite to join ")
                 .setStyle(Style.EMPTY.withColor(MessageFormatter.ERROR_COLOR))
@@ -545,254 +450,89 @@ public class TeamManager {
                                 .setStyle(Style.EMPTY.withColor(MessageFormatter.ERROR_COLOR))
                 );
         sendToPlayer(ctx, player, declineText);
-
-        String ownerName = team.getName().split("_")[team.getName().split("_").length - 1];
-        ServerPlayerEntity owner = ctx.getSource().getServer().getPlayerManager().getPlayer(ownerName);
-        if (owner != null) {
-            Text declineOwnerText = Text.literal(player.getName().getString() + " has declined the invite to join your team!")
-                    .setStyle(Style.EMPTY.withColor(MessageFormatter.ERROR_COLOR));
-            sendToPlayer(ctx, owner, declineOwnerText);
-        }
+        TeamEventBus.post(new TeamEvent.InviteDeclined(team, invite));
 
         return 1;
     }
 
     public static int leaveTeam(CommandContext<ServerCommandSource> ctx) {
+        return DeferredCommands.run(ctx, "leave", DeferredCommands::planLeave, TeamManager::leaveTeamNow);
+    }
+
+    static int leaveTeamNow(CommandContext<ServerCommandSource> ctx) {
         var player = getPlayer(ctx);
         if (player == null) {
             sendFeedback(ctx, "You must be a player to leave a team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        var teamStream = getScoreboard(ctx).getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam"));
-
-        Team team = null;
-        for (Team t : teamStream.toList()) {
-            if (t.getPlayerList().contains(player.getName().getString())) {
-                team = t;
-                break;
-            }
-        }
+        Team team = TeamRegistry.getByMember(player.getName().getString());
 
         if (team == null) {
             sendFeedback(ctx, "You are not in a team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        getScoreboard(ctx).removeScoreHolderFromTeam(player.getName().getString(), team);
+        return completeLeave(ctx, player, team);
+    }
+
+    static int completeLeave(CommandContext<ServerCommandSource> ctx, ServerPlayerEntity player, Team team) {
+        var member = player.getName().getString();
+        var owner = TeamRegistry.isOwner(team, player.getUuid());
+        removeFromTeam(getScoreboard(ctx), member, team);
         sendFeedback(ctx, "You have left the team!", MessageFormatter.SUCCESS_COLOR);
+        TeamEventBus.post(new TeamEvent.MemberLeft(team, member, owner));
 
-        String ownerName = team.getName().split("_")[team.getName().split("_").length - 1];
-        if (ownerName.equals(player.getName().getString())) {
+        if (owner) {
             sendFeedback(ctx, "You are the owner of the team! Use /cteam delete to delete the team.", MessageFormatter.WARNING_COLOR);
-            return 1;
         }
 
-        team.getPlayerList().forEach(p -> {
-            ServerPlayerEntity playerEntity = ctx.getSource().getServer().getPlayerManager().getPlayer(p);
-            if (playerEntity != null) {
-                Text leaveText = Text.literal(player.getName().getString() + " has left the team!")
-                        .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR));
-                sendToPlayer(ctx, playerEntity, leaveText);
-            }
-        });
-
         return 1;
     }
 
     public static int teamInfo(CommandContext<ServerCommandSource> ctx) {
         var teamName = ctx.getArgument("team", String.class);
-        var teams = getScoreboard(ctx).getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam"))
-                .toList();
-
-        var team = teams.stream()
-                .filter(t -> t.getName().startsWith("cteam_" + teamName))
-                .findFirst()
-                .orElse(null);
+        var team = TeamRegistry.getByName(teamName);
 
         if (team == null) {
             sendFeedback(ctx, "Team not found!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        var owner = team.getName().split("_")[team.getName().split("_").length - 1];
-        var ownerPlayer = ctx.getSource().getServer().getPlayerManager().getPlayer(owner);
-        var ownerName = ownerPlayer != null ? ownerPlayer.getName().getString() : owner;
-
-        var members = team.getPlayerList();
-        var memberList = members.stream()
-                .map(m -> {
-                    var player = ctx.getSource().getServer().getPlayerManager().getPlayer(m);
-                    return player != null ? player.getName().getString() : m;
-                })
-                .reduce("", (a, b) -> a + "\n" + b);
-
-        var hoverEvent = new HoverEvent(
-                HoverEvent.Action.SHOW_TEXT,
-                Text.literal("This team has % out of 3 members:\n".replace("%", String.valueOf(members.size())))
-                        .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                        .append(
-                                Text.literal(memberList)
-                                        .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                        )
-        );
-
-        var teamInfo = Text.literal("Team Info:\n")
-                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                .append(
-                        Text.literal("Name: ")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                )
-                .append(
-                        Text.literal(team.getDisplayName().getString())
-                                .setStyle(team.getPrefix().getStyle()
-                                        .withHoverEvent(hoverEvent)
-                                )
-                )
-                .append(
-                        Text.literal("\nOwner: ")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                )
-                .append(
-                        Text.literal(ownerName)
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                )
-                .append(
-                        Text.literal("\nMembers: ")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                )
-                .append(
-                        Text.literal(memberList)
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                );
-
-        sendFeedback(ctx, teamInfo);
+        sendFeedback(ctx, TeamInfoRenderer.render(team));
 
         return 1;
     }
 
     public static int forceDeleteTeam(CommandContext<ServerCommandSource> ctx) {
         var teamName = ctx.getArgument("team", String.class);
-        var teams = getScoreboard(ctx).getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam"))
-                .toList();
-
-        var team = teams.stream()
-                .filter(t -> t.getName().startsWith("cteam_" + teamName))
-                .findFirst()
-                .orElse(null);
+        var team = TeamRegistry.getByName(teamName);
 
         if (team == null) {
             sendFeedback(ctx, "Team not found!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        CakeCommands.LOGGER.info("Force deleting team with name {}", teamName);
         getScoreboard(ctx).removeTeam(team);
+        TeamEventBus.post(new TeamEvent.TeamDeleted(team, ctx.getSource().getName()));
         sendFeedback(ctx, "Team deleted successfully!", MessageFormatter.SUCCESS_COLOR);
         return 1;
     }
 
     public static int help(CommandContext<ServerCommandSource> ctx) {
-        var helpText = Text.literal("Commands:\n")
-                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                .append(
-                        Text.literal("/cteam create <name> <color>")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - Create a new team!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n/cteam delete")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - Delete your team!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n/cteam edit color <color>")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - Change your team's color!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n/cteam edit name <name>")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - Change your team's name!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n/cteam invite <player>")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - Invite a player to your team!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n/cteam kick <player>")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - Kick a player from your team!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n/cteam list")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - List all teams!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n/cteam leave")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - Leave your team!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n/cteam info <team>")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal(" - Get info about a team!")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                )
-                )
-                .append(
-                        Text.literal("\n\nCakeCommands by ")
-                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                .append(
-                                        Text.literal("HaiiroMajo")
-                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
-                                                .append(
-                                                        Text.literal(" with ")
-                                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR))
-                                                                .append(
-                                                                        Text.literal("<3")
-                                                                                .setStyle(Style.EMPTY.withColor(MessageFormatter.ERROR_COLOR))
-                                                                )
-                                                )
-
-                                )
-                );
+        sendFeedback(ctx, HelpRenderer.getOverview(ctx.getSource()));
+        return 1;
+    }
 
-        sendFeedback(ctx, helpText);
+    public static int helpPage(CommandContext<ServerCommandSource> ctx) {
+        var subcommand = ctx.getArgument("subcommand", String.class);
+        var page = HelpRenderer.getPage(ctx.getSource(), subcommand);
+        if (page == null) {
+            sendFeedback(ctx, "Unknown subcommand! Use /cteam help to see all commands.", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
 
+        sendFeedback(ctx, page);
         return 1;
     }
 
@@ -803,47 +543,57 @@ public class TeamManager {
             return 0;
         }
 
-        CakeCommands.LOGGER.info("Sending message to team from player {}", player.getName().getString());
-
         var message = ctx.getArgument("message", String.class);
-        CakeCommands.LOGGER.info("message: {}", message);
         if (message == null || message.isEmpty()) {
             sendFeedback(ctx, "Message cannot be empty!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        var teamStream = getScoreboard(ctx).getTeams()
-                .stream()
-                .filter(t -> t.getName().startsWith("cteam"));
-
-        Team team = null;
-        for (Team t : teamStream.toList()) {
-            if (t.getPlayerList().contains(player.getName().getString())) {
-                team = t;
-                break;
-            }
-        }
+        Team team = TeamRegistry.getByMember(player.getName().getString());
 
         if (team == null) {
             sendFeedback(ctx, "You are not in a team!", MessageFormatter.ERROR_COLOR);
             return 0;
         }
 
-        var members = team.getPlayerList();
+        sendTeamMessage(player, team, message);
+        return 1;
+    }
 
+    /**
+     * Sends a chat line from the player to their team, shared by /ctm and the team chat channel.
+     */
+    static void sendTeamMessage(ServerPlayerEntity player, Team team, String message) {
         var teamColor = team.getPrefix().getStyle().getColor();
         var messageText = Text.literal("[" + team.getDisplayName().getString() + "] ")
                 .setStyle(Style.EMPTY.withColor(teamColor))
                 .append(Text.literal("<" + player.getName().getString() + "> " + message)
                         .setStyle(Style.EMPTY.withColor(MessageFormatter.WHITE)));
 
-        for (String p : members) {
-            ServerPlayerEntity playerEntity = ctx.getSource().getServer().getPlayerManager().getPlayer(p);
-            if (playerEntity != null) {
-                sendToPlayer(ctx, playerEntity, messageText);
-            }
+        var recipients = TeamChat.send(team, messageText, true);
+        TeamEventBus.post(new TeamEvent.MessageSent(team, player.getName().getString(), message, recipients));
+    }
+
+    public static int toggleTeamChat(CommandContext<ServerCommandSource> ctx) {
+        var player = getPlayer(ctx);
+        if (player == null) {
+            sendFeedback(ctx, "You must be a player to use team chat!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+
+        if (TeamChat.isChannelEnabled(player)) {
+            TeamChat.setChannelEnabled(player, false);
+            sendFeedback(ctx, "Your chat goes to everyone again!", MessageFormatter.SUCCESS_COLOR);
+            return 1;
+        }
+
+        if (TeamRegistry.getByMember(player.getName().getString()) == null) {
+            sendFeedback(ctx, "You are not in a team!", MessageFormatter.ERROR_COLOR);
+            return 0;
         }
 
+        TeamChat.setChannelEnabled(player, true);
+        sendFeedback(ctx, "Your chat now goes to your team!", MessageFormatter.SUCCESS_COLOR);
         return 1;
     }
 }
@@ -0,0 +1,31 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.storage.TeamRecord;
+
+import java.util.UUID;
+
+/**
+ * What the mod knows about a custom team on top of the scoreboard, decoded once from its {@link TeamRecord}.
+ * {@code ownerId} is null for a migrated team until its owner joins.
+ */
+public record TeamMeta(String name, String color, String ownerName, UUID ownerId, long createdAt) {
+    public static TeamMeta of(TeamRecord record) {
+        return new TeamMeta(record.name(), record.color(), record.owner(), record.ownerId(), record.createdAt());
+    }
+
+    public TeamMeta withName(String name) {
+        return new TeamMeta(name, color, ownerName, ownerId, createdAt);
+    }
+
+    public TeamMeta withColor(String color) {
+        return new TeamMeta(name, color, ownerName, ownerId, createdAt);
+    }
+
+    public TeamMeta withOwnerId(UUID ownerId) {
+        return new TeamMeta(name, color, ownerName, ownerId, createdAt);
+    }
+
+    public boolean isOwner(UUID playerId) {
+        return ownerId != null && ownerId.equals(playerId);
+    }
+}
@@ -0,0 +1,109 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.events.TeamEvent;
+import moe.haiiro.cakecommands.events.TeamEventBus;
+import moe.haiiro.cakecommands.storage.MailRecord;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.minecraft.sound.SoundCategory;
+import net.minecraft.sound.SoundEvents;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+
+/**
+ * Side effects of team events: chat notifications and sounds on the server thread, logging on the event worker.
+ */
+public class TeamNotifications {
+    public static void register() {
+        TeamEventBus.register(TeamEvent.TeamCreated.class, (server, event) ->
+                server.getPlayerManager().broadcast(MessageFormatter.formatTemplate("{} has created a new team!", MessageFormatter.INFO_COLOR, event.owner()), false));
+
+        TeamEventBus.register(TeamEvent.InviteSent.class, (server, event) -> {
+            var target = server.getPlayerManager().getPlayer(event.invite().playerName());
+            if (target != null) {
+                target.getServerWorld().playSound(null, target.getBlockPos(), SoundEvents.ENTITY_EXPERIENCE_ORB_PICKUP, SoundCategory.PLAYERS, 1.0f, 1.0f);
+            }
+        });
+
+        TeamEventBus.register(TeamEvent.InviteDeclined.class, (server, event) -> {
+            var meta = TeamRegistry.getMeta(event.team());
+            var owner = meta != null && meta.ownerId() != null ? server.getPlayerManager().getPlayer(meta.ownerId()) : null;
+            if (owner != null) {
+                owner.sendMessage(Text.literal(event.invite().playerName() + " has declined the invite to join your team!")
+                        .setStyle(Style.EMPTY.withColor(MessageFormatter.ERROR_COLOR)));
+            }
+        });
+
+        TeamEventBus.register(TeamEvent.MemberJoined.class, (server, event) ->
+                TeamChat.send(event.team(), Text.literal(event.member() + " has joined the team!")
+                        .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR)), false));
+
+        TeamEventBus.register(TeamEvent.MemberLeft.class, (server, event) -> {
+            if (event.owner()) {
+                return;
+            }
+            TeamChat.send(event.team(), Text.literal(event.member() + " has left the team!")
+                    .setStyle(Style.EMPTY.withColor(MessageFormatter.INFO_COLOR)), false);
+        });
+
+        TeamEventBus.register(TeamEvent.MemberKicked.class, (server, event) -> {
+            var target = server.getPlayerManager().getPlayer(event.member());
+            if (target == null) {
+                Mailbox.post(server, event.member(), MailRecord.KICKED, event.team().getDisplayName().getString(), null);
+            } else {
+                target.sendMessage(Text.literal("You have been kicked from ")
+                        .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
+                        .append(
+                                Text.literal(event.team().getDisplayName().getString())
+                                        .setStyle(event.team().getPrefix().getStyle())
+                        ).append(
+                                Text.literal("!")
+                                        .setStyle(Style.EMPTY.withColor(MessageFormatter.WARNING_COLOR))
+                        ));
+            }
+        });
+
+        TeamEventBus.register(TeamEvent.TeamDeleted.class, (server, event) -> {
+            var name = event.team().getDisplayName().getString();
+            // The scoreboard doesn't clear the member list of a removed team
+            for (String member : event.team().getPlayerList()) {
+                if (!member.equals(event.deletedBy())) {
+                    Mailbox.post(server, member, MailRecord.TEAM_DELETED, name, null);
+                }
+            }
+        });
+
+        TeamEventBus.register(TeamEvent.TeamRenamed.class, (server, event) -> {
+            for (String member : event.team().getPlayerList()) {
+                if (!member.equals(event.renamedBy())) {
+                    Mailbox.post(server, member, MailRecord.TEAM_RENAMED, event.oldName(), event.newName());
+                }
+            }
+        });
+
+        registerLogging();
+    }
+
+    private static void registerLogging() {
+        TeamEventBus.registerAsync(TeamEvent.TeamCreated.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} created team {}", event.owner(), event.teamId()));
+        TeamEventBus.registerAsync(TeamEvent.TeamDeleted.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} deleted team {}", event.deletedBy(), event.teamId()));
+        TeamEventBus.registerAsync(TeamEvent.TeamRenamed.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} renamed team {} from {} to {}", event.renamedBy(), event.teamId(), event.oldName(), event.newName()));
+        TeamEventBus.registerAsync(TeamEvent.TeamRecolored.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} changed the color of team {} to {}", event.recoloredBy(), event.teamId(), event.color()));
+        TeamEventBus.registerAsync(TeamEvent.MemberJoined.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} joined team {}", event.member(), event.teamId()));
+        TeamEventBus.registerAsync(TeamEvent.MemberLeft.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} left team {}", event.member(), event.teamId()));
+        TeamEventBus.registerAsync(TeamEvent.MemberKicked.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} kicked {} from team {}", event.kickedBy(), event.member(), event.teamId()));
+        TeamEventBus.registerAsync(TeamEvent.InviteSent.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} invited {} to team {} (invite {})", event.invitedBy(), event.invite().playerName(), event.teamId(), event.invite().getInviteId()));
+        TeamEventBus.registerAsync(TeamEvent.InviteDeclined.class, (server, event) ->
+                CakeCommands.LOGGER.info("{} declined the invite to team {}", event.invite().playerName(), event.teamId()));
+        TeamEventBus.registerAsync(TeamEvent.MessageSent.class, (server, event) ->
+                CakeCommands.LOGGER.debug("[{}] <{}> {} ({} recipients)", event.teamId(), event.sender(), event.message(), event.recipients()));
+    }
+}
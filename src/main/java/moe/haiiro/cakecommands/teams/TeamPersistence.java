@@ -0,0 +1,120 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.storage.InviteRecord;
+import moe.haiiro.cakecommands.storage.TeamRecord;
+import moe.haiiro.cakecommands.storage.TeamStore;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Uuids;
+import net.minecraft.util.WorldSavePath;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loads the {@link TeamStore} for a world, reconciles it with the scoreboard, which stays the source of truth
+ * for which teams exist and who is in them, and fills the {@link TeamRegistry} from it.
+ * After that {@link ScoreboardSync} keeps both up to date.
+ */
+public class TeamPersistence {
+    public static void load(MinecraftServer server) {
+        TeamStore.load(server.getSavePath(WorldSavePath.ROOT).resolve(CakeCommands.MODID));
+        TeamRegistry.clear();
+
+        var known = new HashSet<String>();
+        for (Team team : server.getScoreboard().getTeams()) {
+            if (!TeamRegistry.isCustomTeam(team)) {
+                continue;
+            }
+
+            known.add(team.getName());
+            var members = List.copyOf(team.getPlayerList());
+            var record = TeamStore.getTeam(team.getName());
+            if (record == null) {
+                record = fromScoreboard(server, team);
+                TeamStore.putTeam(record);
+            } else if (!new HashSet<>(record.members()).equals(new HashSet<>(members))) {
+                record = record.withMembers(members);
+                TeamStore.putTeam(record);
+            }
+            TeamRegistry.registerTeam(team, TeamMeta.of(record));
+        }
+
+        for (TeamRecord record : new ArrayList<>(TeamStore.getTeams())) {
+            if (!known.contains(record.id())) {
+                TeamStore.removeTeam(record.id());
+            }
+        }
+
+        InviteStore.restoreNextId(TeamStore.getLastInviteId());
+        // Restore in creation order, the invite store expects invites to expire in the order they are added
+        var invites = TeamStore.getInvites().stream()
+                .sorted(Comparator.comparingLong(InviteRecord::id))
+                .toList();
+        for (InviteRecord invite : invites) {
+            var team = server.getScoreboard().getTeam(invite.teamId());
+            if (team != null && TeamRegistry.isCustomTeam(team)) {
+                InviteStore.restore(invite, team);
+            } else {
+                TeamStore.removeInvite(invite.id());
+            }
+        }
+
+        Mailbox.prune();
+        ScoreboardSync.start(server);
+    }
+
+    public static void save() {
+        TeamStore.close();
+    }
+
+    /**
+     * Binds a migrated team to the UUID of its owner when they join.
+     */
+    public static void playerJoined(ServerPlayerEntity player) {
+        var team = TeamRegistry.bindOwner(player.getName().getString(), player.getUuid());
+        if (team != null) {
+            TeamStore.updateTeam(team.getName(), r -> r.withOwnerId(player.getUuid()));
+        }
+    }
+
+    /**
+     * Best effort UUID for a player who may be offline, without asking the session servers.
+     *
+     * @return null if the UUID isn't known yet, {@link #playerJoined} fills it in later
+     */
+    static UUID resolveOwnerId(MinecraftServer server, String ownerName) {
+        var player = server.getPlayerManager().getPlayer(ownerName);
+        if (player != null) {
+            return player.getUuid();
+        }
+        return server.isOnlineMode() ? null : Uuids.getOfflinePlayerUuid(ownerName);
+    }
+
+    // Teams created before the store existed only have what the scoreboard knows about them. Their ids look like
+    // cteam_<name>_<owner>; names are alphanumeric, so the owner is everything after the second underscore.
+    // This is the only place a team id is ever parsed.
+    static TeamRecord fromScoreboard(MinecraftServer server, Team team) {
+        var id = team.getName();
+        var separator = id.indexOf('_', TeamRegistry.TEAM_PREFIX.length());
+        var name = separator < 0 ? id.substring(TeamRegistry.TEAM_PREFIX.length()) : id.substring(TeamRegistry.TEAM_PREFIX.length(), separator);
+        var owner = separator < 0 ? "" : id.substring(separator + 1);
+
+        var color = team.getPrefix().getStyle().getColor();
+        return new TeamRecord(
+                id,
+                name,
+                color != null ? color.getName() : "white",
+                owner,
+                resolveOwnerId(server, owner),
+                Instant.now().getEpochSecond(),
+                List.copyOf(team.getPlayerList())
+        );
+    }
+}
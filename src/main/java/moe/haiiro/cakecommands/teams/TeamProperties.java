@@ -0,0 +1,104 @@
+package moe.haiiro.cakecommands.teams;
+
+import net.minecraft.scoreboard.AbstractTeam.CollisionRule;
+import net.minecraft.scoreboard.AbstractTeam.VisibilityRule;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+
+/**
+ * Collects changes to the properties of a team and applies them in one go, so they leave the server as a single
+ * update (see {@link TeamUpdates}). Only the properties set on the builder that differ from the team are touched.
+ */
+public class TeamProperties {
+    private Text prefix;
+    private Text displayName;
+    private CollisionRule collisionRule;
+    private Boolean friendlyFire;
+    private Boolean showFriendlyInvisibles;
+    private VisibilityRule deathMessageVisibility;
+    private VisibilityRule nameTagVisibility;
+
+    public static TeamProperties create() {
+        return new TeamProperties();
+    }
+
+    /**
+     * The rules every custom team is created with.
+     */
+    public static TeamProperties defaults() {
+        return create()
+                .collisionRule(CollisionRule.NEVER)
+                .friendlyFire(false)
+                .showFriendlyInvisibles(true)
+                .deathMessageVisibility(VisibilityRule.ALWAYS)
+                .nameTagVisibility(VisibilityRule.HIDE_FOR_OTHER_TEAMS);
+    }
+
+    /**
+     * Sets the prefix and display name to the short name of the team in the given style.
+     */
+    public TeamProperties name(String name, Style style) {
+        return prefix(Text.literal(name + " ").setStyle(style))
+                .displayName(Text.literal(name).setStyle(style));
+    }
+
+    public TeamProperties prefix(Text prefix) {
+        this.prefix = prefix;
+        return this;
+    }
+
+    public TeamProperties displayName(Text displayName) {
+        this.displayName = displayName;
+        return this;
+    }
+
+    public TeamProperties collisionRule(CollisionRule collisionRule) {
+        this.collisionRule = collisionRule;
+        return this;
+    }
+
+    public TeamProperties friendlyFire(boolean friendlyFire) {
+        this.friendlyFire = friendlyFire;
+        return this;
+    }
+
+    public TeamProperties showFriendlyInvisibles(boolean showFriendlyInvisibles) {
+        this.showFriendlyInvisibles = showFriendlyInvisibles;
+        return this;
+    }
+
+    public TeamProperties deathMessageVisibility(VisibilityRule deathMessageVisibility) {
+        this.deathMessageVisibility = deathMessageVisibility;
+        return this;
+    }
+
+    public TeamProperties nameTagVisibility(VisibilityRule nameTagVisibility) {
+        this.nameTagVisibility = nameTagVisibility;
+        return this;
+    }
+
+    public void applyTo(Team team) {
+        if (prefix != null && !prefix.equals(team.getPrefix())) {
+            team.setPrefix(prefix);
+        }
+        if (displayName != null && !displayName.equals(team.getDisplayName())) {
+            team.setDisplayName(displayName);
+        }
+        if (collisionRule != null && collisionRule != team.getCollisionRule()) {
+            team.setCollisionRule(collisionRule);
+        }
+        if (friendlyFire != null && friendlyFire != team.isFriendlyFireAllowed()) {
+            team.setFriendlyFireAllowed(friendlyFire);
+        }
+        if (showFriendlyInvisibles != null && showFriendlyInvisibles != team.shouldShowFriendlyInvisibles()) {
+            team.setShowFriendlyInvisibles(showFriendlyInvisibles);
+        }
+        if (deathMessageVisibility != null && deathMessageVisibility != team.getDeathMessageVisibilityRule()) {
+            team.setDeathMessageVisibilityRule(deathMessageVisibility);
+        }
+        if (nameTagVisibility != null && nameTagVisibility != team.getNameTagVisibilityRule()) {
+            team.setNameTagVisibilityRule(nameTagVisibility);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package moe.haiiro.cakecommands.teams;
+
+import moe.haiiro.cakecommands.CakeCommands;
+import net.minecraft.scoreboard.Team;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hash indexes over the custom teams, kept in sync with the scoreboard by {@link ScoreboardSync}
+ * so lookups never have to scan the scoreboard.
+ * Names and owners come from each team's {@link TeamMeta}, never from the scoreboard team id.
+ */
+public class TeamRegistry {
+    public static final String TEAM_PREFIX = "cteam_";
+
+    // Creation order, used for paging through the teams
+    private static final List<Team> teams = new ArrayList<>();
+    private static final Map<String, Team> teamsById = new HashMap<>();
+    private static final Map<Team, TeamMeta> meta = new HashMap<>();
+    private static final Map<UUID, Team> teamsByOwner = new HashMap<>();
+    // Migrated teams whose owner hasn't joined since, bound to a UUID by bindOwner
+    private static final Map<String, Team> unboundOwners = new HashMap<>();
+    private static final Map<String, Team> teamsByName = new HashMap<>();
+    private static final Map<String, Team> teamsByMember = new HashMap<>();
+    private static final Map<Team, Long> versions = new HashMap<>();
+    private static final List<Listener> listeners = new ArrayList<>();
+    // Shared by all teams, so a team that gets deleted and recreated never reuses an old version
+    private static long nextVersion = 1;
+
+    /**
+     * Notified after the indexes change.
+     */
+    public interface Listener {
+        default void teamAdded(Team team) {
+        }
+
+        default void teamRemoved(Team team) {
+        }
+
+        default void memberAdded(String member, Team team) {
+        }
+
+        default void memberRemoved(String member, Team team) {
+        }
+
+        default void teamChanged(Team team) {
+        }
+
+        default void metaChanged(Team team, TeamMeta previous) {
+        }
+
+        default void cleared() {
+        }
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static boolean isCustomTeam(Team team) {
+        return team.getName().startsWith(TEAM_PREFIX);
+    }
+
+    public static void clear() {
+        teams.clear();
+        teamsById.clear();
+        meta.clear();
+        teamsByOwner.clear();
+        unboundOwners.clear();
+        teamsByName.clear();
+        teamsByMember.clear();
+        versions.clear();
+        listeners.forEach(Listener::cleared);
+    }
+
+    public static void registerTeam(Team team, TeamMeta teamMeta) {
+        var previous = teamsById.put(team.getName(), team);
+        if (previous != null) {
+            teams.remove(previous);
+        }
+        teams.add(team);
+        versions.put(team, nextVersion++);
+        meta.put(team, teamMeta);
+        index(team, teamMeta);
+        listeners.forEach(l -> l.teamAdded(team));
+        for (String member : team.getPlayerList()) {
+            addMember(member, team);
+        }
+    }
+
+    public static void unregisterTeam(Team team) {
+        if (teamsById.remove(team.getName(), team)) {
+            teams.remove(team);
+        }
+        versions.remove(team);
+        var teamMeta = meta.remove(team);
+        if (teamMeta != null) {
+            unindex(team, teamMeta);
+        }
+        for (String member : team.getPlayerList()) {
+            teamsByMember.remove(member, team);
+        }
+        listeners.forEach(l -> l.teamRemoved(team));
+    }
+
+    public static void addMember(String member, Team team) {
+        var previous = teamsByMember.put(member, team);
+        if (previous == team) {
+            return;
+        }
+        if (previous != null) {
+            listeners.forEach(l -> l.memberRemoved(member, previous));
+            touch(previous);
+        }
+        listeners.forEach(l -> l.memberAdded(member, team));
+        touch(team);
+    }
+
+    public static void removeMember(String member, Team team) {
+        if (teamsByMember.remove(member, team)) {
+            listeners.forEach(l -> l.memberRemoved(member, team));
+            touch(team);
+        }
+    }
+
+    /**
+     * Replaces the metadata of a registered team, e.g. after a rename, and re-indexes it.
+     *
+     * @return false if the new name or owner already belongs to another team, nothing is changed then
+     */
+    public static boolean updateMeta(Team team, TeamMeta teamMeta) {
+        var previous = meta.get(team);
+        if (previous == null) {
+            return false;
+        }
+        var conflict = findConflict(team, previous, teamMeta);
+        if (conflict != null) {
+            CakeCommands.LOGGER.warn("Not updating team {}, its new name or owner already belongs to {}", team.getName(), conflict.getName());
+            return false;
+        }
+        unindex(team, previous);
+        meta.put(team, teamMeta);
+        index(team, teamMeta);
+        listeners.forEach(l -> l.metaChanged(team, previous));
+        touch(team);
+        return true;
+    }
+
+    // Only keys that change are checked, a team that already clashed when it was registered can still be edited
+    private static Team findConflict(Team team, TeamMeta previous, TeamMeta teamMeta) {
+        if (teamMeta.ownerId() != null && !teamMeta.ownerId().equals(previous.ownerId())) {
+            var owned = teamsByOwner.get(teamMeta.ownerId());
+            if (owned != null && owned != team) {
+                return owned;
+            }
+        }
+        if (!teamMeta.name().equals(previous.name())) {
+            var named = teamsByName.get(teamMeta.name());
+            if (named != null && named != team) {
+                return named;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Binds a migrated team to its owner's UUID the first time the owner is seen.
+     *
+     * A player who already owns another team keeps the migrated one unbound, where only admins can remove it.
+     *
+     * @return the team that got bound, or null if the player doesn't own an unbound team or already owns one
+     */
+    public static Team bindOwner(String ownerName, UUID ownerId) {
+        var team = unboundOwners.get(ownerName);
+        if (team == null) {
+            return null;
+        }
+        return updateMeta(team, meta.get(team).withOwnerId(ownerId)) ? team : null;
+    }
+
+    // The first team keeps a key, later ones are still registered and reachable by id and members
+    private static void index(Team team, TeamMeta teamMeta) {
+        var byOwner = teamMeta.ownerId() != null
+                ? teamsByOwner.putIfAbsent(teamMeta.ownerId(), team)
+                : unboundOwners.putIfAbsent(teamMeta.ownerName(), team);
+        if (byOwner != null && byOwner != team) {
+            CakeCommands.LOGGER.warn("Team {} has the same owner as {}, its owner can't manage it", team.getName(), byOwner.getName());
+        }
+        var byName = teamsByName.putIfAbsent(teamMeta.name(), team);
+        if (byName != null && byName != team) {
+            CakeCommands.LOGGER.warn("Team {} has the same name as {}, it can't be found by name", team.getName(), byName.getName());
+        }
+    }
+
+    private static void unindex(Team team, TeamMeta teamMeta) {
+        if (teamMeta.ownerId() != null) {
+            teamsByOwner.remove(teamMeta.ownerId(), team);
+        } else {
+            unboundOwners.remove(teamMeta.ownerName(), team);
+        }
+        teamsByName.remove(teamMeta.name(), team);
+    }
+
+    /**
+     * Bumps the version of a team. Must be called after every change to a registered team, so anything cached
+     * for an older version gets rebuilt.
+     */
+    public static void touch(Team team) {
+        if (versions.containsKey(team)) {
+            versions.put(team, nextVersion++);
+            listeners.forEach(l -> l.teamChanged(team));
+        }
+    }
+
+    /**
+     * @return the current version of the team, or 0 if it isn't registered
+     */
+    public static long getVersion(Team team) {
+        return versions.getOrDefault(team, 0L);
+    }
+
+    public static TeamMeta getMeta(Team team) {
+        return meta.get(team);
+    }
+
+    public static Team getByOwner(UUID ownerId) {
+        return teamsByOwner.get(ownerId);
+    }
+
+    public static boolean isUnboundOwner(String ownerName) {
+        return unboundOwners.containsKey(ownerName);
+    }
+
+    public static Team getByMember(String member) {
+        return teamsByMember.get(member);
+    }
+
+    public static Team getByName(String name) {
+        return teamsByName.get(name);
+    }
+
+    public static List<Team> getTeams() {
+        return Collections.unmodifiableList(teams);
+    }
+
+    public static int size() {
+        return teamsById.size();
+    }
+
+    public static String getShortName(Team team) {
+        var teamMeta = meta.get(team);
+        return teamMeta != null ? teamMeta.name() : "";
+    }
+
+    public static String getOwnerName(Team team) {
+        var teamMeta = meta.get(team);
+        return teamMeta != null ? teamMeta.ownerName() : "";
+    }
+
+    public static boolean isOwner(Team team, UUID playerId) {
+        var teamMeta = meta.get(team);
+        return teamMeta != null && teamMeta.isOwner(playerId);
+    }
+}
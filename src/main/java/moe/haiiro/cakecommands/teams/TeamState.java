@@ -1,14 +1,17 @@
 package moe.haiiro.cakecommands.teams;
 
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.util.ColorRegistry;
 import net.minecraft.text.TextColor;
-import net.minecraft.util.Formatting;
 
-import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Represents the state of a team.
  */
 public record TeamState(String name, String color, String owner) {
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[a-zA-Z0-9]*$");
+
     public TeamState {
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException("Name cannot be null or empty!");
@@ -22,33 +25,18 @@ public record TeamState(String name, String color, String owner) {
             owner = "Server";
         }
 
-        if (name.length() > 4) {
-            throw new IllegalArgumentException("Name cannot be longer than 4 characters!");
+        int maxNameLength = ConfigManager.get().maxNameLength();
+        if (name.length() > maxNameLength) {
+            throw new IllegalArgumentException("Name cannot be longer than " + maxNameLength + " characters!");
         }
 
         // Test if name has special characters
-        if (!name.matches("^[a-zA-Z0-9]*$")) {
+        if (!NAME_PATTERN.matcher(name).matches()) {
             throw new IllegalArgumentException("Name cannot contain special characters!");
         }
 
         // Test for a valid color (either minecraft color or hex color)
-        var colors = List.of("black",
-                "dark_blue",
-                "dark_green",
-                "dark_aqua",
-                "dark_red",
-                "dark_purple",
-                "gold",
-                "gray",
-                "dark_gray",
-                "blue",
-                "green",
-                "aqua",
-                "red",
-                "light_purple",
-                "yellow",
-                "white");
-        if (!colors.contains(color) && !color.matches("^#([A-Fa-f0-9]{6}|[A-Fa-f0-9]{3})$")) {
+        if (!ColorRegistry.isValid(color)) {
             throw new IllegalArgumentException("Invalid color! Must be a valid minecraft color or hex color.");
         }
     }
@@ -70,24 +58,12 @@ public record TeamState(String name, String color, String owner) {
     }
 
     public int getRgbColor() {
-        // If the color is a hex color, return it as "0x" + the hex color
-        if (color.matches("^#([A-Fa-f0-9]{6}|[A-Fa-f0-9]{3})$")) {
-            return Integer.parseInt(color.substring(1), 16);
-        }
-        return 0;
+        return getMinecraftColor().getRgb();
     }
 
+    // Resolved colors are cached by the registry, so this is a map lookup
     public TextColor getMinecraftColor() {
-        if (color.matches("^#([A-Fa-f0-9]{6}|[A-Fa-f0-9]{3})$")) {
-            return TextColor.fromRgb(getRgbColor());
-        }
-
-        for (Formatting formatting : Formatting.values()) {
-            if (formatting.getName().toLowerCase().equals(color)) {
-                return TextColor.fromFormatting(formatting);
-            }
-        }
-        return TextColor.fromFormatting(Formatting.WHITE);
+        return ColorRegistry.resolve(color);
     }
 
     public String getRawColor() {
@@ -0,0 +1,329 @@
+package moe.haiiro.cakecommands.teams;
+
+import com.google.gson.Gson;
+import com.mojang.brigadier.context.CommandContext;
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.events.TeamEvent;
+import moe.haiiro.cakecommands.events.TeamEventBus;
+import moe.haiiro.cakecommands.storage.TeamStore;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.util.WorldSavePath;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static moe.haiiro.cakecommands.util.CommandUtils.sendFeedback;
+
+/**
+ * Archives and removes teams that are empty or whose owner hasn't been seen for a while, a few per tick.
+ */
+public class TeamSweeper {
+    private static final int MAX_REPORTED_TEAMS = 10;
+    private static final Gson GSON = new Gson();
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String SWEEPER = "Team sweeper";
+
+    private static Pass active = null;
+    private static int ticksSincePass = 0;
+
+    /**
+     * @param enabled            whether passes run on their own every {@code intervalMinutes}
+     * @param dryRun             whether those passes only report what they'd remove
+     * @param abandonedAfterDays how long an owner can be away before their team is removed
+     * @param emptyAfterDays     how old a team without members has to be before it's removed
+     * @param teamsPerTick       how many teams a pass looks at every tick
+     * @param intervalMinutes    how long to wait between two passes
+     */
+    public record Policy(boolean enabled, boolean dryRun, int abandonedAfterDays, int emptyAfterDays, int teamsPerTick, int intervalMinutes) {
+        public static final Policy DEFAULT = new Policy(false, false, 90, 7, 16, 60);
+
+        public Policy {
+            if (abandonedAfterDays <= 0) {
+                abandonedAfterDays = 90;
+            }
+            if (emptyAfterDays <= 0) {
+                emptyAfterDays = 7;
+            }
+            if (teamsPerTick <= 0) {
+                teamsPerTick = 16;
+            }
+            if (intervalMinutes <= 0) {
+                intervalMinutes = 60;
+            }
+        }
+    }
+
+    /**
+     * One line of an archive, readable by {@link TeamTransfer}, which ignores the extra fields.
+     */
+    record ArchivedTeam(String name, String color, String owner, UUID ownerId, List<String> members, String reason, long lastSeen) {
+    }
+
+    public static int dryRun(CommandContext<ServerCommandSource> ctx) {
+        return startFromCommand(ctx, true);
+    }
+
+    public static int sweep(CommandContext<ServerCommandSource> ctx) {
+        return startFromCommand(ctx, false);
+    }
+
+    private static int startFromCommand(CommandContext<ServerCommandSource> ctx, boolean dryRun) {
+        if (active != null) {
+            sendFeedback(ctx, "A team sweep is already running!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+
+        active = new Pass(ctx.getSource().getServer(), ctx, dryRun);
+        sendFeedback(ctx, dryRun ? "Looking for abandoned teams in {} teams..." : "Sweeping abandoned teams from {} teams...",
+                MessageFormatter.INFO_COLOR, active.teams.size());
+        return 1;
+    }
+
+    public static void tick(MinecraftServer server) {
+        var policy = ConfigManager.get().sweeper();
+        if (active == null) {
+            if (policy.enabled() && ++ticksSincePass >= policy.intervalMinutes() * 60 * 20) {
+                ticksSincePass = 0;
+                active = new Pass(server, null, policy.dryRun());
+            }
+            return;
+        }
+
+        if (active.tick(policy)) {
+            active = null;
+        }
+    }
+
+    public static void clear() {
+        if (active != null) {
+            active.close();
+            active = null;
+        }
+        ticksSincePass = 0;
+    }
+
+    private static class Pass {
+        private final MinecraftServer server;
+        private final CommandContext<ServerCommandSource> ctx;
+        private final boolean dryRun;
+        // Teams created during the pass are young enough to be left for the next one
+        private final List<Team> teams;
+        // When each owner's player data was last saved, read off the server thread before the pass starts
+        private final CompletableFuture<Map<UUID, Long>> lastSaved;
+        private final Path path;
+        private final long now = Instant.now().getEpochSecond();
+        private final List<String> found = new ArrayList<>();
+        private FileChannel channel;
+        private BufferedWriter out;
+        private int next = 0;
+        private int abandoned = 0;
+        private int empty = 0;
+
+        Pass(MinecraftServer server, CommandContext<ServerCommandSource> ctx, boolean dryRun) {
+            this.server = server;
+            this.ctx = ctx;
+            this.dryRun = dryRun;
+            this.teams = new ArrayList<>(TeamRegistry.getTeams());
+            this.path = server.getSavePath(WorldSavePath.ROOT).resolve(CakeCommands.MODID).resolve("archive")
+                    .resolve((dryRun ? "dryrun-" : "sweep-") + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jsonl");
+
+            var owners = new HashSet<UUID>();
+            for (Team team : teams) {
+                var ownerId = getOwnerId(TeamRegistry.getMeta(team));
+                if (ownerId != null) {
+                    owners.add(ownerId);
+                }
+            }
+            var playerData = server.getSavePath(WorldSavePath.PLAYERDATA);
+            this.lastSaved = CompletableFuture.supplyAsync(() -> readLastSaved(playerData, owners),
+                            r -> Thread.ofVirtual().name("CakeCommands Team Sweeper").start(r))
+                    .exceptionally(e -> {
+                        CakeCommands.LOGGER.warn("Failed to read when team owners were last seen", e);
+                        return Map.of();
+                    });
+        }
+
+        private static Map<UUID, Long> readLastSaved(Path playerData, Set<UUID> owners) {
+            var lastSaved = new HashMap<UUID, Long>();
+            for (UUID owner : owners) {
+                try {
+                    lastSaved.put(owner, Files.getLastModifiedTime(playerData.resolve(owner + ".dat")).toInstant().getEpochSecond());
+                } catch (IOException e) {
+                    // Never saved, the team's creation time is used instead
+                }
+            }
+            return lastSaved;
+        }
+
+        private UUID getOwnerId(TeamMeta meta) {
+            if (meta == null) {
+                return null;
+            }
+            return meta.ownerId() != null ? meta.ownerId() : TeamPersistence.resolveOwnerId(server, meta.ownerName());
+        }
+
+        /**
+         * @return true once the pass is done
+         */
+        boolean tick(Policy policy) {
+            if (!lastSaved.isDone()) {
+                return false;
+            }
+
+            var swept = new ArrayList<Team>();
+            int end = Math.min(next + policy.teamsPerTick(), teams.size());
+            try {
+                for (; next < end; next++) {
+                    var team = teams.get(next);
+                    var archived = check(policy, team);
+                    if (archived != null) {
+                        write(archived);
+                        swept.add(team);
+                    }
+                }
+                if (out != null) {
+                    // Archived and on disk before anything is removed
+                    out.flush();
+                    if (!dryRun && !swept.isEmpty()) {
+                        channel.force(false);
+                    }
+                }
+            } catch (IOException e) {
+                CakeCommands.LOGGER.warn("Failed to write the team archive {}", path, e);
+                report("Team sweep stopped, the archive could not be written!", MessageFormatter.ERROR_COLOR);
+                close();
+                return true;
+            }
+
+            if (!dryRun) {
+                for (Team team : swept) {
+                    server.getScoreboard().removeTeam(team);
+                    TeamEventBus.post(new TeamEvent.TeamDeleted(team, SWEEPER));
+                }
+            }
+
+            if (next < teams.size()) {
+                return false;
+            }
+            close();
+            finish();
+            return true;
+        }
+
+        private ArchivedTeam check(Policy policy, Team team) {
+            var meta = TeamRegistry.getMeta(team);
+            if (meta == null) {
+                // Removed since the pass started
+                return null;
+            }
+
+            String reason;
+            long lastSeen;
+            if (team.getPlayerList().isEmpty()) {
+                lastSeen = meta.createdAt();
+                if (now - lastSeen < Duration.ofDays(policy.emptyAfterDays()).toSeconds()) {
+                    return null;
+                }
+                reason = "empty";
+                empty++;
+            } else {
+                lastSeen = getLastSeen(meta);
+                if (now - lastSeen < Duration.ofDays(policy.abandonedAfterDays()).toSeconds()) {
+                    return null;
+                }
+                reason = "abandoned";
+                abandoned++;
+            }
+            if (found.size() < MAX_REPORTED_TEAMS) {
+                found.add(meta.name() + " (" + reason + ")");
+            }
+            var record = TeamStore.getTeam(team.getName());
+            return new ArchivedTeam(meta.name(), meta.color(), meta.ownerName(), meta.ownerId(),
+                    record != null ? record.members() : List.copyOf(team.getPlayerList()), reason, lastSeen);
+        }
+
+        // Teams get a grace period from their creation when nothing is known about the owner
+        private long getLastSeen(TeamMeta meta) {
+            var ownerId = getOwnerId(meta);
+            if (ownerId == null) {
+                return meta.createdAt();
+            }
+            if (server.getPlayerManager().getPlayer(ownerId) != null) {
+                return now;
+            }
+            return Math.max(meta.createdAt(), lastSaved.join().getOrDefault(ownerId, meta.createdAt()));
+        }
+
+        private void write(ArchivedTeam team) throws IOException {
+            if (out == null) {
+                Files.createDirectories(path.getParent());
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            }
+            GSON.toJson(team, ArchivedTeam.class, out);
+            out.newLine();
+        }
+
+        private void finish() {
+            int total = abandoned + empty;
+            CakeCommands.LOGGER.info("Team sweep{} done: {} of {} teams {}, {} abandoned and {} empty{}",
+                    dryRun ? " dry run" : "", total, teams.size(), dryRun ? "would be removed" : "removed",
+                    abandoned, empty, total > 0 ? ", archived to " + path : "");
+
+            if (total == 0) {
+                report("No abandoned teams found!", MessageFormatter.SUCCESS_COLOR);
+                return;
+            }
+            report((dryRun ? "{} teams would be removed" : "Removed {} teams") + ", {} abandoned and {} empty! Listed in {}.",
+                    dryRun ? MessageFormatter.WARNING_COLOR : MessageFormatter.SUCCESS_COLOR,
+                    total, abandoned, empty, path.getFileName());
+            for (String team : found) {
+                report("  {}", MessageFormatter.INFO_COLOR, team);
+            }
+            if (total > found.size()) {
+                report("  ...and {} more", MessageFormatter.INFO_COLOR, total - found.size());
+            }
+        }
+
+        private void report(String template, int color, Object... args) {
+            if (ctx != null) {
+                sendFeedback(ctx, template, color, args);
+            }
+        }
+
+        void close() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                CakeCommands.LOGGER.warn("Failed to close the team archive {}", path, e);
+            }
+            out = null;
+            channel = null;
+        }
+    }
+}
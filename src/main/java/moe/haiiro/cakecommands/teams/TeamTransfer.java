@@ -0,0 +1,352 @@
+package moe.haiiro.cakecommands.teams;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.mojang.brigadier.context.CommandContext;
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.audit.AuditLog;
+import moe.haiiro.cakecommands.config.ConfigManager;
+import moe.haiiro.cakecommands.storage.TeamRecord;
+import moe.haiiro.cakecommands.storage.TeamStore;
+import moe.haiiro.cakecommands.util.MessageFormatter;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.scoreboard.ServerScoreboard;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.ServerCommandSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static moe.haiiro.cakecommands.util.CommandUtils.sendFeedback;
+
+/**
+ * Imports and exports teams as JSON Lines in {@code cakecommands/transfer}, a chunk per tick.
+ */
+public class TeamTransfer {
+    private static final int IMPORT_CHUNK_SIZE = 64;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int PROGRESS_INTERVAL_TICKS = 20 * 2;
+    private static final int MAX_REPORTED_ERRORS = 5;
+    private static final Gson GSON = new Gson();
+
+    record Line(String name, String color, String owner, UUID ownerId, List<String> members) {
+    }
+
+    private interface Job {
+        /**
+         * @return true once the job is done
+         */
+        boolean tick(MinecraftServer server);
+
+        void cancel();
+    }
+
+    private static Job active = null;
+
+    private static Path getDirectory() {
+        return FabricLoader.getInstance().getGameDir().resolve(CakeCommands.MODID).resolve("transfer").toAbsolutePath().normalize();
+    }
+
+    private static Path resolve(CommandContext<ServerCommandSource> ctx) {
+        var directory = getDirectory();
+        try {
+            var path = directory.resolve(ctx.getArgument("file", String.class)).normalize();
+            return path.startsWith(directory) && !path.equals(directory) ? path : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    public static int importTeams(CommandContext<ServerCommandSource> ctx) {
+        if (active != null) {
+            sendFeedback(ctx, "A team import or export is already running!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+
+        var path = resolve(ctx);
+        if (path == null) {
+            sendFeedback(ctx, "File must be inside the cakecommands/transfer folder!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+
+        if (!Files.isRegularFile(path)) {
+            sendFeedback(ctx, "File not found!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+
+        active = new ImportJob(ctx, path);
+        sendFeedback(ctx, "Importing teams from {}...", MessageFormatter.INFO_COLOR, path.getFileName());
+        return 1;
+    }
+
+    public static int exportTeams(CommandContext<ServerCommandSource> ctx) {
+        if (active != null) {
+            sendFeedback(ctx, "A team import or export is already running!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+
+        var path = resolve(ctx);
+        if (path == null) {
+            sendFeedback(ctx, "File must be inside the cakecommands/transfer folder!", MessageFormatter.ERROR_COLOR);
+            return 0;
+        }
+
+        // Records are immutable, so copying the references is all the server thread has to do
+        var records = new ArrayList<TeamRecord>(TeamRegistry.size());
+        for (Team team : TeamRegistry.getTeams()) {
+            var record = TeamStore.getTeam(team.getName());
+            if (record != null) {
+                records.add(record);
+            }
+        }
+
+        active = new ExportJob(ctx, path, records);
+        sendFeedback(ctx, "Exporting {} teams to {}...", MessageFormatter.INFO_COLOR, records.size(), path.getFileName());
+        return 1;
+    }
+
+    public static void tick(MinecraftServer server) {
+        if (active != null && active.tick(server)) {
+            active = null;
+        }
+    }
+
+    public static void clear() {
+        if (active != null) {
+            active.cancel();
+            active = null;
+        }
+    }
+
+    private record Entry(int lineNumber, TeamState state, UUID ownerId, List<String> members) {
+    }
+
+    private static class ImportJob implements Job {
+        private final CommandContext<ServerCommandSource> ctx;
+        private final Path path;
+        private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger invalid = new AtomicInteger();
+        private final Thread reader;
+        private volatile boolean readDone = false;
+        private volatile IOException failure = null;
+        private int imported = 0;
+        private int skipped = 0;
+        private int ticks = 0;
+
+        ImportJob(CommandContext<ServerCommandSource> ctx, Path path) {
+            this.ctx = ctx;
+            this.path = path;
+            this.reader = Thread.ofVirtual().name("CakeCommands Team Import").start(this::read);
+        }
+
+        private void read() {
+            try (var in = Files.newBufferedReader(path)) {
+                String text;
+                int lineNumber = 0;
+                while ((text = in.readLine()) != null) {
+                    lineNumber++;
+                    if (text.isBlank()) {
+                        continue;
+                    }
+
+                    Entry entry;
+                    try {
+                        entry = parse(lineNumber, text);
+                    } catch (JsonParseException | IllegalArgumentException e) {
+                        if (invalid.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+                            errors.add("Line " + lineNumber + ": " + e.getMessage());
+                        }
+                        continue;
+                    }
+                    // Blocks while the server thread catches up, so the file is never read into memory at once
+                    queue.put(entry);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                readDone = true;
+            }
+        }
+
+        private static Entry parse(int lineNumber, String text) {
+            var line = GSON.fromJson(text, Line.class);
+            if (line == null || line.owner() == null || line.owner().isEmpty()) {
+                throw new IllegalArgumentException("Owner cannot be null or empty!");
+            }
+            if (!Mailbox.isValidPlayerName(line.owner())) {
+                throw new IllegalArgumentException("Invalid owner name " + line.owner() + "!");
+            }
+
+            var state = new TeamState(line.name(), line.color(), line.owner());
+            var members = new LinkedHashSet<String>();
+            members.add(state.owner());
+            if (line.members() != null) {
+                members.addAll(line.members());
+            }
+            members.remove(null);
+            for (String member : members) {
+                if (!Mailbox.isValidPlayerName(member)) {
+                    throw new IllegalArgumentException("Invalid player name " + member + "!");
+                }
+            }
+            int maxMembers = ConfigManager.get().maxMembers();
+            if (members.size() > maxMembers) {
+                throw new IllegalArgumentException("Team has more than " + maxMembers + " members!");
+            }
+            return new Entry(lineNumber, state, line.ownerId(), List.copyOf(members));
+        }
+
+        // The same checks the live commands make, adding a player to the scoreboard team would move them out of theirs
+        private static String findConflict(ServerScoreboard scoreboard, Entry entry, UUID ownerId) {
+            var state = entry.state();
+            if (scoreboard.getTeam(state.getTeamId()) != null || TeamRegistry.getByName(state.name()) != null) {
+                return "Team " + state.name() + " already exists!";
+            }
+            if ((ownerId != null && TeamRegistry.getByOwner(ownerId) != null) || TeamRegistry.isUnboundOwner(state.owner())) {
+                return state.owner() + " already owns a team!";
+            }
+            for (String member : entry.members()) {
+                if (TeamRegistry.getByMember(member) != null || TeamRegistry.isUnboundOwner(member)) {
+                    return member + " is already in a team!";
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean tick(MinecraftServer server) {
+            var scoreboard = server.getScoreboard();
+            for (int i = 0; i < IMPORT_CHUNK_SIZE; i++) {
+                var entry = queue.poll();
+                if (entry == null) {
+                    break;
+                }
+
+                var state = entry.state();
+                var ownerId = entry.ownerId() != null ? entry.ownerId() : TeamPersistence.resolveOwnerId(server, state.owner());
+                var conflict = findConflict(scoreboard, entry, ownerId);
+                if (conflict != null) {
+                    if (++skipped <= MAX_REPORTED_ERRORS) {
+                        errors.add("Line " + entry.lineNumber() + ": " + conflict);
+                    }
+                    continue;
+                }
+                var team = TeamManager.addTeam(scoreboard, state, ownerId, entry.members());
+                AuditLog.record(server, ctx.getSource().getName(), "import", team, null, state.name() + " " + state.getRawColor());
+                imported++;
+            }
+
+            // readDone is set after the last entry is queued, so an empty queue after it means everything was applied
+            if (readDone && queue.isEmpty()) {
+                finish();
+                return true;
+            }
+
+            if (++ticks % PROGRESS_INTERVAL_TICKS == 0) {
+                sendFeedback(ctx, "Imported {} teams so far ({} skipped, {} invalid)...", MessageFormatter.INFO_COLOR, imported, skipped, invalid.get());
+            }
+            return false;
+        }
+
+        private void finish() {
+            if (failure != null) {
+                CakeCommands.LOGGER.warn("Failed to read teams from {}", path, failure);
+                sendFeedback(ctx, "Import stopped after {} teams, the file could not be read!", MessageFormatter.ERROR_COLOR, imported);
+                return;
+            }
+
+            CakeCommands.LOGGER.info("Imported {} teams from {} ({} skipped, {} invalid)", imported, path, skipped, invalid.get());
+            sendFeedback(ctx, "Imported {} teams! {} clashed with existing teams or members and {} were invalid.",
+                    invalid.get() > 0 || skipped > 0 ? MessageFormatter.WARNING_COLOR : MessageFormatter.SUCCESS_COLOR,
+                    imported, skipped, invalid.get());
+            for (String error : errors) {
+                sendFeedback(ctx, "{}", MessageFormatter.ERROR_COLOR, error);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            reader.interrupt();
+        }
+    }
+
+    private static class ExportJob implements Job {
+        private final CommandContext<ServerCommandSource> ctx;
+        private final Path path;
+        private final int total;
+        private final AtomicInteger written = new AtomicInteger();
+        private final Thread writer;
+        private volatile boolean done = false;
+        private volatile IOException failure = null;
+        private int ticks = 0;
+
+        ExportJob(CommandContext<ServerCommandSource> ctx, Path path, List<TeamRecord> records) {
+            this.ctx = ctx;
+            this.path = path;
+            this.total = records.size();
+            this.writer = Thread.ofVirtual().name("CakeCommands Team Export").start(() -> write(records));
+        }
+
+        private void write(List<TeamRecord> records) {
+            var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(path.getParent());
+                try (var out = Files.newBufferedWriter(tmp)) {
+                    for (TeamRecord record : records) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        GSON.toJson(new Line(record.name(), record.color(), record.owner(), record.ownerId(), record.members()), Line.class, out);
+                        out.newLine();
+                        written.incrementAndGet();
+                    }
+                }
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                done = true;
+            }
+        }
+
+        @Override
+        public boolean tick(MinecraftServer server) {
+            if (done) {
+                if (failure != null) {
+                    CakeCommands.LOGGER.warn("Failed to write teams to {}", path, failure);
+                    sendFeedback(ctx, "Export failed, the file could not be written!", MessageFormatter.ERROR_COLOR);
+                } else {
+                    CakeCommands.LOGGER.info("Exported {} teams to {}", total, path);
+                    sendFeedback(ctx, "Exported {} teams!", MessageFormatter.SUCCESS_COLOR, total);
+                }
+                return true;
+            }
+
+            if (++ticks % PROGRESS_INTERVAL_TICKS == 0) {
+                sendFeedback(ctx, "Exported {}/{} teams so far...", MessageFormatter.INFO_COLOR, written.get(), total);
+            }
+            return false;
+        }
+
+        @Override
+        public void cancel() {
+            writer.interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package moe.haiiro.cakecommands.teams;
+
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Coalesces the scoreboard updates of custom teams. Every property setter of a team normally broadcasts its own
+ * update packet; for custom teams the scoreboard only marks the team dirty here instead, and each dirty team is sent
+ * once at the end of the tick with all its changes. Creating and removing teams and changing members isn't deferred.
+ */
+public class TeamUpdates {
+    private static final Set<Team> dirty = new LinkedHashSet<>();
+    private static boolean flushing = false;
+    private static long deferred = 0;
+    private static long sent = 0;
+
+    public record Stats(long deferred, long sent) {
+    }
+
+    /**
+     * Called by the scoreboard for every team update.
+     *
+     * @return true if the update was deferred and must not be sent now
+     */
+    public static boolean defer(Team team) {
+        if (flushing || !TeamRegistry.isCustomTeam(team)) {
+            return false;
+        }
+        dirty.add(team);
+        deferred++;
+        // Also covers /team modify, renders of the team have to pick up the new prefix or display name
+        TeamRegistry.touch(team);
+        return true;
+    }
+
+    /**
+     * Sends one update for every team changed since the last flush. Runs at the end of the tick.
+     */
+    public static void flush(MinecraftServer server) {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        var scoreboard = server.getScoreboard();
+        flushing = true;
+        try {
+            for (Team team : dirty) {
+                // Skip teams that got removed, or removed and recreated, since they were changed
+                if (scoreboard.getTeam(team.getName()) == team) {
+                    scoreboard.updateScoreboardTeam(team);
+                    sent++;
+                }
+            }
+        } finally {
+            flushing = false;
+            dirty.clear();
+        }
+    }
+
+    public static Stats getStats() {
+        return new Stats(deferred, sent);
+    }
+
+    public static void clear() {
+        dirty.clear();
+    }
+}
@@ -0,0 +1,78 @@
+package moe.haiiro.cakecommands.util;
+
+import net.minecraft.text.TextColor;
+import net.minecraft.util.Formatting;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves color strings (minecraft color names or hex colors) to {@link TextColor}s.
+ * Every distinct color string is parsed once and the resulting color is shared afterwards.
+ */
+public class ColorRegistry {
+    private static final Pattern HEX_COLOR = Pattern.compile("^#([A-Fa-f0-9]{6}|[A-Fa-f0-9]{3})$");
+    // Hex colors are player input, so don't let the cache grow without bound.
+    private static final int MAX_CACHED_COLORS = 4096;
+
+    private static final Map<String, Formatting> namedColors;
+    private static final Map<String, TextColor> resolvedColors = new ConcurrentHashMap<>();
+
+    static {
+        Map<String, Formatting> colors = new HashMap<>();
+        for (Formatting formatting : Formatting.values()) {
+            if (formatting.isColor()) {
+                colors.put(formatting.getName(), formatting);
+                resolvedColors.put(formatting.getName(), TextColor.fromFormatting(formatting));
+            }
+        }
+        namedColors = Map.copyOf(colors);
+    }
+
+    /**
+     * @return the color for the given string, or null if it is neither a minecraft color nor a hex color
+     */
+    public static TextColor resolve(String color) {
+        if (color == null) {
+            return null;
+        }
+
+        var resolved = resolvedColors.get(color);
+        if (resolved != null) {
+            return resolved;
+        }
+
+        if (!HEX_COLOR.matcher(color).matches()) {
+            return null;
+        }
+
+        var hex = color.substring(1);
+        if (hex.length() == 3) {
+            hex = new String(new char[]{hex.charAt(0), hex.charAt(0), hex.charAt(1), hex.charAt(1), hex.charAt(2), hex.charAt(2)});
+        }
+        resolved = TextColor.fromRgb(Integer.parseInt(hex, 16));
+
+        if (resolvedColors.size() < MAX_CACHED_COLORS) {
+            var existing = resolvedColors.putIfAbsent(color, resolved);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return resolved;
+    }
+
+    public static boolean isValid(String color) {
+        return resolve(color) != null;
+    }
+
+    public static boolean isNamedColor(String color) {
+        return namedColors.containsKey(color);
+    }
+
+    public static Set<String> getColorNames() {
+        return namedColors.keySet();
+    }
+}
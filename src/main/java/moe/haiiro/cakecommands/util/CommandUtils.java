@@ -7,23 +7,28 @@ import net.minecraft.text.Text;
 
 public class CommandUtils {
     public static void sendFeedback(CommandContext<ServerCommandSource> context, String message, int color) {
-        context.getSource().sendFeedback(() -> MessageFormatter.formatMessage(message, color), false);
+        var text = MessageFormatter.constantMessage(message, color);
+        context.getSource().sendFeedback(() -> text, false);
+    }
+
+    public static void sendFeedback(CommandContext<ServerCommandSource> context, String template, int color, Object... args) {
+        context.getSource().sendFeedback(() -> MessageFormatter.formatTemplate(template, color, args), false);
     }
 
     public static void sendFeedback(CommandContext<ServerCommandSource> context, Text message) {
         context.getSource().sendFeedback(() -> MessageFormatter.prefixMessage(message), false);
     }
 
-    public static void broadcastMessage(CommandContext<ServerCommandSource> context, String message, int color) {
-        context.getSource().getServer().getPlayerManager().broadcast(MessageFormatter.formatMessage(message, color), false);
+    public static void broadcastMessage(CommandContext<ServerCommandSource> context, String template, int color, Object... args) {
+        context.getSource().getServer().getPlayerManager().broadcast(MessageFormatter.formatTemplate(template, color, args), false);
     }
 
     public static void sendToPlayer(CommandContext<ServerCommandSource> context, String playerName, String message, int color) {
         var player = context.getSource().getServer().getPlayerManager().getPlayer(playerName);
         if (player != null) {
-            player.sendMessage(MessageFormatter.formatMessage(message, color));
+            player.sendMessage(MessageFormatter.constantMessage(message, color));
         } else {
-            sendFeedback(context, "Player " + playerName + " not found!", MessageFormatter.ERROR_COLOR);
+            sendFeedback(context, "Player {} not found!", MessageFormatter.ERROR_COLOR, playerName);
         }
     }
 
@@ -32,7 +37,7 @@ public class CommandUtils {
         if (player != null) {
             player.sendMessage(MessageFormatter.prefixMessage(message));
         } else {
-            sendFeedback(context, "Player " + playerName + " not found!", MessageFormatter.ERROR_COLOR);
+            sendFeedback(context, "Player {} not found!", MessageFormatter.ERROR_COLOR, playerName);
         }
     }
 
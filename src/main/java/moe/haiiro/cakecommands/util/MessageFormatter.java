@@ -1,10 +1,13 @@
 package moe.haiiro.cakecommands.util;
 
+import moe.haiiro.cakecommands.config.ConfigManager;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class MessageFormatter {
-    private static final String PREFIX = "GakkouCraft";
     public static final int ERROR_COLOR = 0xf7676a;
     public static final int SUCCESS_COLOR = 0xa3f767;
     public static final int INFO_COLOR = 0x67a3f7;
@@ -12,25 +15,61 @@ public class MessageFormatter {
     public static final int WHITE = 0xffffff;
     public static final int BLACK = 0x000000;
 
-    public static Text formatMessage(String message, int messageColor) {
-        Text formattedPrefix = Text.literal("[")
+    // Shared by every message, never mutate it. Only rebuilt when the configured prefix changes.
+    private static volatile Text formattedPrefix = buildPrefix(ConfigManager.get().chatPrefix());
+
+    private record MessageKey(String message, int color) {
+    }
+
+    private static final Map<MessageKey, Text> constantMessages = new ConcurrentHashMap<>();
+    private static final Map<String, String[]> templates = new ConcurrentHashMap<>();
+
+    public static final ConfigManager.Listener CONFIG_LISTENER = (previous, current) -> {
+        if (!previous.chatPrefix().equals(current.chatPrefix())) {
+            formattedPrefix = buildPrefix(current.chatPrefix());
+            constantMessages.clear();
+        }
+    };
+
+    private static Text buildPrefix(String prefix) {
+        return Text.literal("[")
                 .setStyle(Style.EMPTY.withColor(0xd167f7))
-                .append(Text.literal(PREFIX)
-                        .setStyle(Style.EMPTY.withColor(0xdb7dd5))
-                        .append(Text.literal("] ")
-                                .setStyle(Style.EMPTY.withColor(0xd167f7))));
-        Text formattedMessage = Text.literal(message)
-                .setStyle(Style.EMPTY.withColor(messageColor));
-        return formattedPrefix.copy().append(formattedMessage);
+                .append(Text.literal(prefix)
+                        .setStyle(Style.EMPTY.withColor(0xdb7dd5)))
+                .append(Text.literal("] ")
+                        .setStyle(Style.EMPTY.withColor(0xd167f7)));
+    }
+
+    public static Text formatMessage(String message, int messageColor) {
+        return prefixMessage(Text.literal(message)
+                .setStyle(Style.EMPTY.withColor(messageColor)));
     }
 
     public static Text prefixMessage(Text message) {
-        Text formattedPrefix = Text.literal("[")
-                .setStyle(Style.EMPTY.withColor(0xd167f7))
-                .append(Text.literal(PREFIX)
-                        .setStyle(Style.EMPTY.withColor(0xdb7dd5))
-                        .append(Text.literal("] ")
-                                .setStyle(Style.EMPTY.withColor(0xd167f7))));
-        return formattedPrefix.copy().append(message);
+        return Text.empty().append(formattedPrefix).append(message);
+    }
+
+    /**
+     * Returns the prefixed message, building it only the first time it is requested.
+     * Only pass string constants here, every distinct message stays cached for the lifetime of the server.
+     */
+    public static Text constantMessage(String message, int messageColor) {
+        return constantMessages.computeIfAbsent(new MessageKey(message, messageColor), k -> formatMessage(k.message(), k.color()));
+    }
+
+    /**
+     * Fills the {@code {}} placeholders of a constant template with the given arguments, in order.
+     * The template is split into its fixed parts once and reused afterwards.
+     */
+    public static Text formatTemplate(String template, int messageColor, Object... args) {
+        var parts = templates.computeIfAbsent(template, t -> t.split("\\{}", -1));
+        var message = new StringBuilder(template.length() + 16 * args.length);
+        for (int i = 0; i < parts.length; i++) {
+            message.append(parts[i]);
+            if (i < parts.length - 1) {
+                message.append(i < args.length ? args[i] : "{}");
+            }
+        }
+        return formatMessage(message.toString(), messageColor);
     }
 }
@@ -0,0 +1,58 @@
+package moe.haiiro.cakecommands.util;
+
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Immutable, sorted set of names that can be searched by prefix in O(log n + k).
+ */
+public class PrefixIndex {
+    public static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new String[0]);
+
+    private final String[] keys;
+    private final String[] names;
+
+    private PrefixIndex(String[] keys, String[] names) {
+        this.keys = keys;
+        this.names = names;
+    }
+
+    public static PrefixIndex of(Collection<String> names) {
+        if (names.isEmpty()) {
+            return EMPTY;
+        }
+
+        var sorted = names.stream()
+                .distinct()
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .toArray(String[]::new);
+        var keys = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = sorted[i].toLowerCase(Locale.ROOT);
+        }
+        return new PrefixIndex(keys, sorted);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Adds every name starting with the builder's remaining input (ignoring case) as a suggestion.
+     */
+    public SuggestionsBuilder suggest(SuggestionsBuilder builder) {
+        var prefix = builder.getRemainingLowerCase();
+        for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            builder.suggest(names[i]);
+        }
+        return builder;
+    }
+
+    private int lowerBound(String prefix) {
+        int index = Arrays.binarySearch(keys, prefix);
+        return index < 0 ? -index - 1 : index;
+    }
+}
@@ -0,0 +1,198 @@
+package moe.haiiro.cakecommands.util;
+
+import com.mojang.brigadier.Command;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import moe.haiiro.cakecommands.CakeCommands;
+import moe.haiiro.cakecommands.config.ConfigManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets per player and command, checked before a command handler does any work.
+ * Each bucket is a single packed {@code long} stored in the map, the last refill time in the high bits and the tokens
+ * left in thousandths in the low bits. Buckets are only touched on the server thread, like the rest of the team state.
+ * Buckets outlive a player's session and are only dropped by a sweep once they've refilled, so reconnecting
+ * doesn't reset a burst.
+ */
+public class RateLimiter {
+    private static final long TOKEN = 1000;
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final int MAX_CAPACITY = (int) (TOKEN_MASK / TOKEN);
+    private static final long EPOCH = System.nanoTime();
+    private static final int SWEEP_INTERVAL_TICKS = 20 * 60;
+
+    private static final String RATE_LIMITED = "You're doing that too fast, slow down!";
+    private static final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+    private static int ticksSinceSweep = 0;
+
+    /**
+     * Picks up the new limits, existing buckets keep their tokens.
+     */
+    public static final ConfigManager.Listener CONFIG_LISTENER = (previous, current) ->
+            limiters.forEach((name, limiter) -> limiter.limit = current.rateLimits().get(name));
+
+    /**
+     * @param capacity        how many calls can be made in a burst
+     * @param refillPerSecond how many calls are given back every second
+     */
+    public record Limit(int capacity, double refillPerSecond) {
+        public Limit {
+            capacity = Math.clamp(capacity, 1, MAX_CAPACITY);
+            refillPerSecond = Math.max(refillPerSecond, 0.001);
+        }
+    }
+
+    public static class Limiter {
+        private final Object2LongOpenHashMap<UUID> buckets = new Object2LongOpenHashMap<>();
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private volatile Limit limit;
+
+        private Limiter(Limit limit) {
+            this.limit = limit;
+            buckets.defaultReturnValue(-1);
+        }
+
+        /**
+         * Takes a token from the player's bucket.
+         *
+         * @return false if the bucket is empty and the call should be rejected
+         */
+        public boolean tryAcquire(UUID playerId) {
+            var limit = this.limit;
+            if (limit == null) {
+                allowed.increment();
+                return true;
+            }
+            long now = now();
+            long state = buckets.getLong(playerId);
+            long tokens = state < 0 ? limit.capacity() * TOKEN : tokens(state, limit, now);
+            if (tokens < TOKEN) {
+                rejected.increment();
+                return false;
+            }
+            buckets.put(playerId, pack(now, tokens - TOKEN));
+            allowed.increment();
+            return true;
+        }
+
+        // A full bucket is the same as no bucket, so dropping it changes nothing
+        private int sweep(long now) {
+            var limit = this.limit;
+            int size = buckets.size();
+            if (limit == null) {
+                buckets.clear();
+            } else {
+                var states = buckets.values().iterator();
+                while (states.hasNext()) {
+                    if (tokens(states.nextLong(), limit, now) >= limit.capacity() * TOKEN) {
+                        states.remove();
+                    }
+                }
+            }
+            return size - buckets.size();
+        }
+
+        public Limit limit() {
+            return limit;
+        }
+
+        public long allowed() {
+            return allowed.sum();
+        }
+
+        public long rejected() {
+            return rejected.sum();
+        }
+    }
+
+    private static long pack(long millis, long tokens) {
+        return millis << TOKEN_BITS | tokens;
+    }
+
+    private static long now() {
+        return (System.nanoTime() - EPOCH) / 1_000_000;
+    }
+
+    private static long tokens(long state, Limit limit, long now) {
+        long last = state >>> TOKEN_BITS;
+        // Refilling at n tokens per second is n thousandths of a token per millisecond
+        return Math.min(limit.capacity() * TOKEN, (state & TOKEN_MASK) + (long) ((now - last) * limit.refillPerSecond()));
+    }
+
+    /**
+     * Returns the limiter for the given name, limited by its entry in the config's {@code rateLimits}, or not at all
+     * if it doesn't have one.
+     */
+    public static Limiter get(String name) {
+        return limiters.computeIfAbsent(name, n -> {
+            var limit = ConfigManager.get().rateLimits().get(n);
+            if (limit == null) {
+                CakeCommands.LOGGER.warn("No rate limit configured for {}", n);
+            }
+            return new Limiter(limit);
+        });
+    }
+
+    /**
+     * Wraps a command handler so players over the limit are rejected before it runs.
+     * The console and command blocks are never limited.
+     */
+    public static Command<ServerCommandSource> limited(String name, Command<ServerCommandSource> command) {
+        var limiter = get(name);
+        return ctx -> {
+            var player = ctx.getSource().getPlayer();
+            if (player != null && !limiter.tryAcquire(player.getUuid())) {
+                ctx.getSource().sendFeedback(RateLimiter::rateLimitedMessage, false);
+                return 0;
+            }
+            return command.run(ctx);
+        };
+    }
+
+    /**
+     * Takes a token for a player outside of a command, telling them if they're over the limit.
+     */
+    public static boolean tryAcquire(String name, ServerPlayerEntity player) {
+        if (get(name).tryAcquire(player.getUuid())) {
+            return true;
+        }
+        player.sendMessage(rateLimitedMessage());
+        return false;
+    }
+
+    private static Text rateLimitedMessage() {
+        return MessageFormatter.constantMessage(RATE_LIMITED, MessageFormatter.ERROR_COLOR);
+    }
+
+    public static void tick() {
+        if (++ticksSinceSweep < SWEEP_INTERVAL_TICKS) {
+            return;
+        }
+        ticksSinceSweep = 0;
+        long now = now();
+        int swept = 0;
+        for (Limiter limiter : limiters.values()) {
+            swept += limiter.sweep(now);
+        }
+        CakeCommands.LOGGER.debug("Dropped {} refilled rate limit buckets", swept);
+    }
+
+    public static Map<String, Limiter> getLimiters() {
+        return Collections.unmodifiableMap(new TreeMap<>(limiters));
+    }
+
+    public static void clear() {
+        limiters.values().forEach(limiter -> limiter.buckets.clear());
+        ticksSinceSweep = 0;
+    }
+}